@@ -0,0 +1,144 @@
+package com.loader.bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Random;
+
+/**
+ * Gera arquivos CSV sintéticos para os benchmarks, sempre com a mesma semente: o mesmo formato, o
+ * mesmo número de linhas e o mesmo charset produzem o mesmo arquivo em qualquer máquina.
+ *
+ * Separador ';' e delimitador '"'. Os textos têm acentos, de modo que o tamanho em bytes muda entre
+ * ISO-8859-1 e UTF-8. Números usam o separador decimal configurado e datas o formato dd/MM/yyyy,
+ * como nos arquivos de entrada do carregador.
+ */
+public class SyntheticCsv {
+
+    public enum Shape {
+        /** 5 colunas: ID;NOME;VALOR;DATA;STATUS. */
+        NARROW,
+        /** 60 colunas, alternando número, texto, decimal e data. */
+        WIDE,
+        /** As 5 colunas de NARROW, com todos os textos delimitados e contendo separadores e aspas duplicadas. */
+        QUOTED
+    }
+
+    public static final long DEFAULT_SEED = 20231105L;
+    private static final int WIDE_COLUMNS = 60;
+    private static final String[] NAMES = {"João", "Conceição", "André", "Márcia", "Estêvão", "Luíza", "Ângelo", "Zoé"};
+    private static final String[] CITIES = {"São Paulo", "Brasília", "Maceió", "Goiânia", "Florianópolis", "Belém"};
+    private static final String[] STATUS = {"ATIVO", "INATIVO", "SUSPENSO"};
+
+    private final Shape shape;
+    private final long seed;
+    private char decimalSeparator = ',';
+
+    public SyntheticCsv(Shape shape) {
+        this(shape, DEFAULT_SEED);
+    }
+
+    public SyntheticCsv(Shape shape, long seed) {
+        this.shape = shape;
+        this.seed = seed;
+    }
+
+    public void setDecimalSeparator(char decimalSeparator) {
+        this.decimalSeparator = decimalSeparator;
+    }
+
+    public int getColumnCount() {
+        return shape == Shape.WIDE ? WIDE_COLUMNS : 5;
+    }
+
+    /**
+     * Grava o cabeçalho e 'rows' linhas num arquivo temporário, removido ao fim da JVM.
+     */
+    public File write(int rows, Charset charset) throws IOException {
+        File file = File.createTempFile("loader-bench-" + shape.name().toLowerCase() + "-", ".csv");
+        file.deleteOnExit();
+        Random random = new Random(seed);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), charset), 1 << 16)) {
+            writer.write(header());
+            writer.write('\n');
+            StringBuilder line = new StringBuilder(1024);
+            for (int i = 0; i < rows; i++) {
+                line.setLength(0);
+                appendRow(line, i, random);
+                line.append('\n');
+                writer.append(line);
+            }
+        }
+        return file;
+    }
+
+    private String header() {
+        if (shape != Shape.WIDE) {
+            return "ID;NOME;VALOR;DATA;STATUS";
+        }
+        StringBuilder header = new StringBuilder();
+        for (int c = 0; c < WIDE_COLUMNS; c++) {
+            header.append(c == 0 ? "" : ";").append("COL_").append(c + 1);
+        }
+        return header.toString();
+    }
+
+    private void appendRow(StringBuilder line, int row, Random random) {
+        if (shape == Shape.WIDE) {
+            for (int c = 0; c < WIDE_COLUMNS; c++) {
+                if (c > 0) {
+                    line.append(';');
+                }
+                switch (c % 4) {
+                    case 0:
+                        line.append(row * WIDE_COLUMNS + c);
+                        break;
+                    case 1:
+                        line.append(NAMES[random.nextInt(NAMES.length)]).append(' ').append(CITIES[random.nextInt(CITIES.length)]);
+                        break;
+                    case 2:
+                        appendDecimal(line, random);
+                        break;
+                    default:
+                        appendDate(line, random);
+                        break;
+                }
+            }
+            return;
+        }
+        String name = NAMES[random.nextInt(NAMES.length)] + " de " + CITIES[random.nextInt(CITIES.length)];
+        line.append(row).append(';');
+        if (shape == Shape.QUOTED) {
+            // Separador e aspas duplicadas dentro do campo delimitado
+            line.append("\"").append(name).append("; \"\"cliente ").append(row).append("\"\"\"");
+        } else {
+            line.append(name);
+        }
+        line.append(';');
+        appendDecimal(line, random);
+        line.append(';');
+        appendDate(line, random);
+        line.append(';');
+        String status = STATUS[random.nextInt(STATUS.length)];
+        line.append(shape == Shape.QUOTED ? "\"" + status + "\"" : status);
+    }
+
+    private void appendDecimal(StringBuilder line, Random random) {
+        int cents = random.nextInt(10_000_000);
+        line.append(cents / 100).append(decimalSeparator);
+        int fraction = cents % 100;
+        line.append(fraction < 10 ? "0" : "").append(fraction);
+    }
+
+    private void appendDate(StringBuilder line, Random random) {
+        int day = random.nextInt(28) + 1;
+        int month = random.nextInt(12) + 1;
+        line.append(day < 10 ? "0" : "").append(day).append('/')
+                .append(month < 10 ? "0" : "").append(month).append('/')
+                .append(2000 + random.nextInt(25));
+    }
+}
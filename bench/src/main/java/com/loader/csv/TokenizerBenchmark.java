@@ -0,0 +1,107 @@
+package com.loader.csv;
+
+import com.loader.bench.SyntheticCsv;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compara o parseLine do CSVParser (BufferedReader.readLine + String por campo) com o CSVTokenizer
+ * sobre bytes, lendo o mesmo arquivo sintético do início ao fim. parserNextRecord mede o caminho
+ * usado pela carga (CSVParser.nextRecord, que escolhe entre os dois conforme o charset).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"UTF-8", "ISO-8859-1"})
+    public String charset;
+
+    @Param({"NARROW", "WIDE", "QUOTED"})
+    public SyntheticCsv.Shape shape;
+
+    private File csvFile;
+    private CSVParser parser;
+
+    @Setup
+    public void setUp() throws IOException {
+        csvFile = new SyntheticCsv(shape).write(rows, Charset.forName(charset));
+        parser = new CSVParser(csvFile.getPath(), ";", "\"", null, null, 1000, "TableMetadata", null, charset);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        parser.closeResources();
+        csvFile.delete();
+    }
+
+    @Benchmark
+    public void parseLine(Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(csvFile), Charset.forName(charset)))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                blackhole.consume(parser.parseLine(line));
+            }
+        }
+    }
+
+    @Benchmark
+    public void tokenizerMaterialized(Blackhole blackhole) throws IOException {
+        try (CSVTokenizer tokenizer = new CSVTokenizer(csvFile, Charset.forName(charset), ";", "\"")) {
+            while (tokenizer.nextRecord()) {
+                for (int i = 0; i < tokenizer.getFieldCount(); i++) {
+                    blackhole.consume(tokenizer.getString(i));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void parserNextRecord(Blackhole blackhole) throws IOException {
+        CSVParser fileParser = new CSVParser(csvFile.getPath(), ";", "\"", null, null, 1000, "TableMetadata", null, charset);
+        try {
+            String[] record;
+            while ((record = fileParser.nextRecord()) != null) {
+                blackhole.consume(record);
+            }
+        } finally {
+            fileParser.closeResources();
+        }
+    }
+
+    @Benchmark
+    public void tokenizerSlicesOnly(Blackhole blackhole) throws IOException {
+        try (CSVTokenizer tokenizer = new CSVTokenizer(csvFile, Charset.forName(charset), ";", "\"")) {
+            while (tokenizer.nextRecord()) {
+                for (int i = 0; i < tokenizer.getFieldCount(); i++) {
+                    blackhole.consume(tokenizer.getFieldLength(i));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.loader.database;
+
+import com.loader.bench.SyntheticCsv;
+import com.loader.csv.CSVParser;
+import com.loader.util.DataFormatter;
+import com.loader.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Carga completa (parse, conversão, bind e executeBatch) de um CSV sintético numa base H2 em memória
+ * (com.h2database:h2 no classpath), pelo mesmo DataLoader usado contra o Oracle. Mede o custo do
+ * carregador do lado do cliente; não substitui uma medição contra a instância real.
+ *
+ * Os parâmetros NLS são fixos (a base embarcada não tem NLS_SESSION_PARAMETERS) e os tipos vêm do
+ * dicionário do H2, então os números passam pelo conversor de texto: a conversão por tipo é medida
+ * no DataFormatterBenchmark. A tabela é esvaziada antes de cada carga.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BatchInsertBenchmark {
+    private static final String DB_URL = "jdbc:h2:mem:loader-bench;DB_CLOSE_DELAY=-1";
+    private static final String TABLE = "PUBLIC.CARGA_BENCH";
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"1000", "5000"})
+    public int batchSize;
+
+    @Param({"STRING", "TYPED"})
+    public BindMode bindMode;
+
+    private File csvFile;
+    private File metricsFile;
+    private ConnectionManager connectionManager;
+    private TableMetadata tableMetadata;
+    private DataFormatter dataFormatter;
+    private CSVParser parser;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        Log.setLevel(Log.Level.ERROR);
+        SyntheticCsv generator = new SyntheticCsv(SyntheticCsv.Shape.NARROW);
+        generator.setDecimalSeparator('.');
+        csvFile = generator.write(rows, StandardCharsets.UTF_8);
+        metricsFile = File.createTempFile("loader-bench", ".metrics.json");
+        metricsFile.deleteOnExit();
+
+        connectionManager = new ConnectionManager(DB_URL, "sa", "", "org.h2.Driver");
+        try (Connection conn = connectionManager.openConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS " + TABLE);
+            stmt.execute("CREATE TABLE " + TABLE + " (ID DECIMAL(12), NOME VARCHAR(100), VALOR DECIMAL(14,2), DATA DATE, STATUS VARCHAR(10))");
+            conn.commit();
+        }
+        tableMetadata = new TableMetadata(connectionManager, TABLE);
+
+        Map<String, String> nlsParameters = new HashMap<>();
+        nlsParameters.put("NLS_DATE_FORMAT", "YYYY-MM-DD");
+        nlsParameters.put("NLS_TIMESTAMP_FORMAT", "YYYY-MM-DD HH24:MI:SS");
+        nlsParameters.put("NLS_NUMERIC_CHARACTERS", ".,");
+        dataFormatter = new DataFormatter(nlsParameters);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareLoad() throws IOException, SQLException {
+        try (Connection conn = connectionManager.openConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("TRUNCATE TABLE " + TABLE);
+            conn.commit();
+        }
+        parser = new CSVParser(csvFile.getPath(), ";", "\"", tableMetadata, dataFormatter, 1000, "TableMetadata", connectionManager, "UTF-8");
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeParser() throws IOException {
+        parser.closeResources();
+    }
+
+    @TearDown
+    public void tearDown() {
+        connectionManager.close();
+        csvFile.delete();
+        metricsFile.delete();
+    }
+
+    @Benchmark
+    public LoadMetrics load() throws IOException, SQLException {
+        DataLoader loader = new DataLoader(connectionManager, tableMetadata, dataFormatter, batchSize);
+        loader.setBindMode(bindMode);
+        loader.setMetricsInterval(0);
+        loader.setMetricsFile(metricsFile.getPath());
+        loader.loadData(parser);
+        return loader.getMetrics();
+    }
+}
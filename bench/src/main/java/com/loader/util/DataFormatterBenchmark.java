@@ -0,0 +1,94 @@
+package com.loader.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Conversão de valores por tipo de coluna no DataFormatter, com parâmetros NLS de uma sessão em
+ * português (DD/MM/RR, vírgula decimal). 'format' é o caminho do modo STRING e 'parse' o do modo
+ * TYPED; formatData mede a busca do conversor a cada valor, que a carga evita resolvendo-o uma vez.
+ * Cada operação converte {@link #VALUES} valores gerados com semente fixa.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataFormatterBenchmark {
+    private static final int VALUES = 4096;
+
+    @Param({"NUMBER", "DATE", "TIMESTAMP(6)", "VARCHAR2"})
+    public String dataType;
+
+    private DataFormatter dataFormatter;
+    private ColumnConverter converter;
+    private String[] values;
+
+    @Setup
+    public void setUp() {
+        Log.setLevel(Log.Level.ERROR);
+        Map<String, String> nlsParameters = new HashMap<>();
+        nlsParameters.put("NLS_DATE_FORMAT", "DD/MM/RR");
+        nlsParameters.put("NLS_TIMESTAMP_FORMAT", "DD/MM/RR HH24:MI:SSXFF");
+        nlsParameters.put("NLS_NUMERIC_CHARACTERS", ",.");
+        dataFormatter = new DataFormatter(nlsParameters);
+        converter = dataFormatter.converterFor(dataType);
+
+        Random random = new Random(20231105L);
+        values = new String[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = sampleValue(random);
+        }
+    }
+
+    private String sampleValue(Random random) {
+        String date = String.format("%02d/%02d/%d", random.nextInt(28) + 1, random.nextInt(12) + 1, 2000 + random.nextInt(25));
+        if (dataType.equals("NUMBER")) {
+            return random.nextInt(1_000_000) + "," + random.nextInt(100);
+        }
+        if (dataType.equals("DATE")) {
+            return date;
+        }
+        if (dataType.startsWith("TIMESTAMP")) {
+            return date + String.format(" %02d:%02d:%02d", random.nextInt(24), random.nextInt(60), random.nextInt(60));
+        }
+        return "Cliente " + random.nextInt(100_000) + " de São Paulo";
+    }
+
+    @Benchmark
+    public void format(Blackhole blackhole) {
+        for (String value : values) {
+            blackhole.consume(converter.format(value));
+        }
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (String value : values) {
+            blackhole.consume(converter.parse(value));
+        }
+    }
+
+    @Benchmark
+    public void formatData(Blackhole blackhole) {
+        for (String value : values) {
+            blackhole.consume(dataFormatter.formatData(value, dataType));
+        }
+    }
+}
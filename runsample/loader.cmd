@@ -1,3 +1,3 @@
-@ECHO OFF
-java -jar %~dp0\Loader.jar %~dp0\configLoader.txt >> %~dp0\logLoader.txt 2>&1
+@ECHO OFF
+java -jar %~dp0\Loader.jar %~dp0\configLoader.txt >> %~dp0\logLoader.txt 2>&1
 EXIT
\ No newline at end of file
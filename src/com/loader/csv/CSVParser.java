@@ -1,280 +1,816 @@
-package com.loader.csv;
-
-import com.loader.database.ConnectionManager;
-import com.loader.database.TableMetadata;
-import com.loader.util.DataFormatter;
-import java.io.*;
-import java.nio.charset.Charset;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
-import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-public class CSVParser {
-    private final String csvFilePath;
-    private final String columnSeparator;
-    private final String enclosureCharacter;
-    private final TableMetadata tableMetadata;
-    private final DataFormatter dataFormatter;
-    private final int sampleSize;
-    private final String dataDetectionMode;
-    private final ConnectionManager connectionManager;
-    private final Charset csvCharset; // Charset do CSV
-    private BufferedWriter badFileWriter; // Adicionado para escrever no arquivo .bad
-    private BufferedReader br;// Leitor do arquivo CSV
-    private int totalRows;
-    private File csvFile; // Defina csvFile como um membro da classe
-    private boolean headerProcessed;
-
-    public CSVParser(String csvFilePath, String columnSeparator, String enclosureCharacter, TableMetadata tableMetadata, DataFormatter dataFormatter, int sampleSize, String dataDetectionMode, ConnectionManager connectionManager, String csvCharset) throws IOException {
-        this.csvFilePath = null;
-		this.columnSeparator = columnSeparator;
-        this.enclosureCharacter = enclosureCharacter;
-        this.tableMetadata = tableMetadata;
-        this.dataFormatter = dataFormatter;
-        this.sampleSize = sampleSize;
-        this.dataDetectionMode = dataDetectionMode;
-        this.connectionManager = connectionManager;
-        this.csvCharset = Charset.forName(csvCharset); // Converter string para Charset
-        this.csvFile = new File(csvFilePath);
-        this.br = new BufferedReader(new InputStreamReader(new FileInputStream(csvFile), csvCharset));
-        this.totalRows = countTotalRows(csvFilePath);
-        if (!this.csvFile.exists()) {
-            throw new FileNotFoundException("O arquivo CSV no foi encontrado no caminho especificado: " + csvFilePath);
-        }
-        this.br = new BufferedReader(new InputStreamReader(new FileInputStream(this.csvFile), csvCharset));
-        this.headerProcessed = false;
-    }
-
-    public List<String[]> parseCSV() throws IOException, SQLException {
-        File csvFile = new File(csvFilePath);
-        File badFile = new File(csvFilePath + ".bad");
-
-        if (!csvFile.exists()) {
-            System.err.println("CSV file does not exist: " + csvFilePath);
-            return new ArrayList<>();
-        }
-
-        analyzeSampleForFormat();
-
-        List<String[]> data = new ArrayList<>();
-        BufferedWriter bwBad = null;
-        try {
-            bwBad = new BufferedWriter(new FileWriter(badFile));
-            BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(csvFile), csvCharset));
-            
-            boolean isFirstRow = true;
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (isFirstRow) {
-                    isFirstRow = false;
-                    continue; // Skip the first row (header)
-                }
-
-                String[] values = parseLine(line);
-                if (values != null) {
-                    // Tratar os valores com base no tipo de dado
-                    for (int i = 0; i < values.length; i++) {
-                        Object formattedValue = dataFormatter.formatData(values[i], tableMetadata.getColumns().get(i).getType());
-                        if (formattedValue instanceof Double) {
-                            // Tratar como nmero
-                            values[i] = String.valueOf(formattedValue);
-                        } else {
-                            // Tratar como String
-                            values[i] = (String) formattedValue;
-                        }
-                    }
-                    /**/System.out.println("Linha processada: " + Arrays.toString(values));
-                    data.add(values);
-                } else {
-                    bwBad.write(line);
-                    bwBad.newLine();
-                    System.out.println("Linha com erro gravada no .bad: " + line);
-                }
-            }
-            br.close();
-        } finally {
-            if (bwBad != null) {
-                bwBad.close();
-            }
-        }
-        return data;
-    }
-
-    private void analyzeSampleForFormat() throws IOException, SQLException {
-        if (dataDetectionMode.equals("DirectTable")) {
-            analyzeSampleUsingDirectTable();
-        } else {
-            analyzeSampleUsingMetadata();
-        }
-    }
-
-    private void analyzeSampleUsingMetadata() throws IOException, SQLException {
-
-        // Lendo uma amostra do arquivo CSV
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(csvFilePath), csvCharset))) {
-            String line;
-            int lineCount = 0;
-            while ((line = br.readLine()) != null && lineCount < sampleSize) {
-                String[] values = parseLine(line);
-                if (lineCount == 0) { // Pular a primeira linha (cabealho)
-                    lineCount++;
-                    continue;
-                }
-
-                // Iterar sobre cada valor da linha e determinar o formato
-                for (int i = 0; i < values.length; i++) {
-                    String columnType = tableMetadata.getColumns().get(i).getType();
-                    values[i] = formatValueBasedOnMetadata(values[i], columnType);
-                }
-                lineCount++;
-            }
-        }
-    }
-    
-    private String formatValueBasedOnMetadata(String value, String columnType) {
-        return dataFormatter.formatData(value, columnType);
-    }
-
-    private void analyzeSampleUsingDirectTable() throws SQLException, IOException {
-        Map<Integer, String> columnFormats = new HashMap<>();
-
-        // Incluindo o esquema no nome da tabela, se disponvel
-        String schemaTableName = tableMetadata.getSchema() != null ? tableMetadata.getSchema() + "." + tableMetadata.getTableName() : tableMetadata.getTableName();
-        String sql = "SELECT * FROM " + schemaTableName + " WHERE ROWNUM <= " + sampleSize;
-
-        try (Connection conn = connectionManager.openConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            
-            ResultSetMetaData rsMetaData = rs.getMetaData();
-            int columnCount = rsMetaData.getColumnCount();
-
-            for (int i = 1; i <= columnCount; i++) {
-                String columnTypeName = rsMetaData.getColumnTypeName(i);
-                columnFormats.put(i - 1, convertSqlTypeToFormat(columnTypeName));
-            }
-
-            // Log dos formatos das colunas para diagnstico
-           /**/columnFormats.forEach((index, format) -> System.out.println("Coluna " + (index + 1) + " formato: " + format));
-        }
-    }
-
-
-    private String convertSqlTypeToFormat(String sqlType) {
-        switch (sqlType) {
-            case "VARCHAR":
-            case "CHAR":
-                return "STRING";
-            case "NUMERIC":
-            case "NUMBER":
-            case "DECIMAL":
-                return "DECIMAL";
-            case "DATE":
-            case "TIMESTAMP":
-                return "DATE";
-            // Adicione mais casos conforme necessrio
-            default:
-                return "UNKNOWN";
-        }
-    }
-
-    
-    private String[] parseLine(String line) {
-        List<String> fields = new ArrayList<>();
-        StringBuilder field = new StringBuilder();
-        boolean insideField = false;
-
-        for (char c : line.toCharArray()) {
-            if (c == enclosureCharacter.charAt(0) && !insideField) {
-                insideField = true;
-                continue;
-            }
-
-            if (c == enclosureCharacter.charAt(0) && insideField) {
-                insideField = false;
-                continue;
-            }
-
-            if (c == columnSeparator.charAt(0) && !insideField) {
-                fields.add(field.toString());
-                field.setLength(0); // Limpa o StringBuilder para o prximo campo
-                continue;
-            }
-
-            field.append(c);
-        }
-
-        if (field.length() > 0) { // Adiciona o ltimo campo
-            fields.add(field.toString());
-        }
-
-        return fields.toArray(new String[0]);
-    }
-    
-    public void writeBadRecord(String[] badData) throws IOException {
-        if (badFileWriter == null) {
-            File badFile = new File(csvFilePath + ".bad");
-            badFileWriter = new BufferedWriter(new FileWriter(badFile, true));
-        }
-
-        String badRecord = String.join(columnSeparator, badData);
-        badFileWriter.write(badRecord);
-        badFileWriter.newLine();
-    }
-
-    public void closeBadFileWriter() throws IOException {
-        if (badFileWriter != null) {
-            badFileWriter.close();
-        }
-    }
-    
-    public List<String[]> parseNextBatch(int batchSize) throws IOException {
-        if (br == null) {
-            br = new BufferedReader(new InputStreamReader(new FileInputStream(csvFile), csvCharset));
-        }
-
-        // Pula a primeira linha se for o cabealho e ainda no tiver sido processado
-        if (!headerProcessed) {
-            br.readLine();
-            headerProcessed = true;
-        }
-
-        List<String[]> batchData = new ArrayList<>();
-        String line;
-        int count = 0;
-        while (count < batchSize && (line = br.readLine()) != null) {
-            String[] values = parseLine(line);
-            if (values != null) {
-                batchData.add(values);
-                count++;
-            }
-        }
-        return batchData;
-    }
-
-
-    private int countTotalRows(String csvFilePath) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(csvFilePath))) {
-            int lines = 0;
-            while (reader.readLine() != null) lines++;
-            return lines;
-        }
-    }
-    
-    public void closeResources() throws IOException {
-        if (br != null) {
-            br.close();
-        }
-    }
-
-    public int getTotalRows() {
-        return this.totalRows;
-    }
+package com.loader.csv;
+
+import com.loader.database.ConnectionManager;
+import com.loader.database.TableMetadata;
+import com.loader.util.AsyncLineWriter;
+import com.loader.util.ColumnConverter;
+import com.loader.util.DataFormatter;
+import com.loader.util.Log;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class CSVParser {
+    private static final int ROW_ESTIMATE_SAMPLE_BYTES = 1024 * 1024;
+    private static final int BAD_QUEUE_CAPACITY = 8192;
+    private static final int INTERN_SAMPLE_RECORDS = 10000;
+    private static final int LOW_CARDINALITY_RATIO = 20; // AUTO: no máximo 1 valor distinto a cada 20 registros
+
+    private final String csvFilePath;
+    private final String columnSeparator;
+    private final String enclosureCharacter;
+    private final TableMetadata tableMetadata;
+    private final DataFormatter dataFormatter;
+    private final int sampleSize;
+    private final String dataDetectionMode;
+    private final ConnectionManager connectionManager;
+    private final Charset csvCharset; // Charset do CSV
+    private AsyncLineWriter badFileWriter; // Gravação assíncrona do arquivo .bad
+    private BufferedReader br;// Leitor do arquivo CSV
+    private CSVTokenizer tokenizer; // Leitor por bytes, usado quando o charset permite
+    private ParallelChunkReader chunkReader; // Parse paralelo por trechos, quando configurado
+    private ColumnMapping columnMapping; // Nulo: campo i vai para a coluna i
+    private boolean[] internFields; // Campos (posição no registro completo) com cache de valores; nulo desliga
+    private StringInterner[] interners; // Caches da leitura sequencial
+    private long estimatedTotalRows = -1;
+    private long inputSize = -1; // Tamanho dos dados a ler (estimado, se o arquivo for compactado)
+    private File csvFile; // Defina csvFile como um membro da classe
+    private final CompressedInput.Format compression; // Formato de compactação do arquivo, se houver
+    private boolean headerProcessed;
+    private long recordsRead; // Registros lidos após o cabeçalho, incluindo linhas em branco
+
+    public CSVParser(String csvFilePath, String columnSeparator, String enclosureCharacter, TableMetadata tableMetadata, DataFormatter dataFormatter, int sampleSize, String dataDetectionMode, ConnectionManager connectionManager, String csvCharset) throws IOException {
+        this.csvFilePath = csvFilePath;
+		this.columnSeparator = columnSeparator;
+        this.enclosureCharacter = enclosureCharacter;
+        this.tableMetadata = tableMetadata;
+        this.dataFormatter = dataFormatter;
+        this.sampleSize = sampleSize;
+        this.dataDetectionMode = dataDetectionMode;
+        this.connectionManager = connectionManager;
+        this.csvCharset = Charset.forName(csvCharset); // Converter string para Charset
+        this.csvFile = new File(csvFilePath);
+        if (!this.csvFile.exists()) {
+            throw new FileNotFoundException("O arquivo CSV não foi encontrado no caminho especificado: " + csvFilePath);
+        }
+        this.compression = CompressedInput.detect(this.csvFile);
+        if (compression != CompressedInput.Format.NONE) {
+            Log.info("Arquivo compactado (" + compression + "), descompactado durante a leitura: " + csvFilePath);
+        }
+        if (CSVTokenizer.supports(this.csvCharset, columnSeparator, enclosureCharacter)) {
+            this.tokenizer = openTokenizer(0);
+        } else {
+            this.br = new BufferedReader(new InputStreamReader(openInput(), this.csvCharset));
+        }
+        this.headerProcessed = false;
+    }
+
+    /**
+     * Recebe os registros de {@link #parseCSV(RecordSink)}, um de cada vez.
+     */
+    public interface RecordSink {
+        void accept(String[] record) throws IOException, SQLException;
+    }
+
+    /**
+     * Lê o arquivo em streaming, a partir da posição corrente, entregando cada registro já formatado
+     * conforme o tipo das colunas. Registros com quantidade de campos diferente da tabela vão para o
+     * arquivo .bad. A memória usada não depende do tamanho do arquivo. Retorna a quantidade de
+     * registros entregues e fecha o parser ao final.
+     */
+    public long parseCSV(RecordSink sink) throws IOException, SQLException {
+        analyzeSampleForFormat();
+
+        List<TableMetadata.ColumnMetadata> columns = tableMetadata.getColumns();
+        // Conversores resolvidos uma vez por coluna, em vez de uma busca por tipo a cada campo
+        ColumnConverter[] converters = new ColumnConverter[columns.size()];
+        for (int i = 0; i < converters.length; i++) {
+            converters[i] = dataFormatter.converterFor(columns.get(i).getType());
+        }
+        long delivered = 0;
+        try {
+            String[] values;
+            while ((values = nextRecord()) != null) {
+                if (values.length != converters.length) {
+                    writeBadRecord(values);
+                    continue;
+                }
+                // Tratar os valores com base no tipo de dado
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = converters[i].format(values[i]);
+                }
+                if (Log.isEnabled(Log.Level.TRACE)) {
+                    Log.trace("Linha processada: " + Arrays.toString(values));
+                }
+                sink.accept(values);
+                delivered++;
+            }
+        } finally {
+            closeResources();
+        }
+        return delivered;
+    }
+
+    private void analyzeSampleForFormat() throws IOException, SQLException {
+        if (dataDetectionMode.equals("DirectTable")) {
+            analyzeSampleUsingDirectTable();
+        } else {
+            analyzeSampleUsingMetadata();
+        }
+    }
+
+    private void analyzeSampleUsingMetadata() throws IOException, SQLException {
+
+        // Lendo uma amostra do arquivo CSV
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(openInput(), csvCharset))) {
+            String line;
+            int lineCount = 0;
+            while ((line = readRecord(br)) != null && lineCount < sampleSize) {
+                String[] values = parseLine(line);
+                if (lineCount == 0) { // Pular a primeira linha (cabeçalho)
+                    lineCount++;
+                    continue;
+                }
+                if (columnMapping != null) {
+                    if (values.length != columnMapping.getFieldCount()) {
+                        lineCount++;
+                        continue;
+                    }
+                    values = columnMapping.project(values);
+                }
+
+                // Iterar sobre cada valor da linha e determinar o formato
+                for (int i = 0; i < values.length; i++) {
+                    String columnType = tableMetadata.getColumns().get(i).getType();
+                    values[i] = formatValueBasedOnMetadata(values[i], columnType);
+                }
+                lineCount++;
+            }
+        }
+    }
+    
+    private String formatValueBasedOnMetadata(String value, String columnType) {
+        return dataFormatter.formatData(value, columnType);
+    }
+
+    private void analyzeSampleUsingDirectTable() throws SQLException, IOException {
+        Map<Integer, String> columnFormats = new HashMap<>();
+
+        // Incluindo o esquema no nome da tabela, se disponível
+        String schemaTableName = tableMetadata.getSchema() != null ? tableMetadata.getSchema() + "." + tableMetadata.getTableName() : tableMetadata.getTableName();
+        String sql = "SELECT * FROM " + schemaTableName + " WHERE ROWNUM <= " + sampleSize;
+
+        try (Connection conn = connectionManager.openConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            ResultSetMetaData rsMetaData = rs.getMetaData();
+            int columnCount = rsMetaData.getColumnCount();
+
+            for (int i = 1; i <= columnCount; i++) {
+                String columnTypeName = rsMetaData.getColumnTypeName(i);
+                columnFormats.put(i - 1, convertSqlTypeToFormat(columnTypeName));
+            }
+
+            // Log dos formatos das colunas para diagnóstico
+           /**/columnFormats.forEach((index, format) -> Log.debug("Coluna " + (index + 1) + " formato: " + format));
+        }
+    }
+
+
+    private String convertSqlTypeToFormat(String sqlType) {
+        switch (sqlType) {
+            case "VARCHAR":
+            case "CHAR":
+                return "STRING";
+            case "NUMERIC":
+            case "NUMBER":
+            case "DECIMAL":
+                return "DECIMAL";
+            case "DATE":
+            case "TIMESTAMP":
+                return "DATE";
+            // Adicione mais casos conforme necessário
+            default:
+                return "UNKNOWN";
+        }
+    }
+
+    
+    // Lê um registro completo. Quebras de linha dentro de delimitadores fazem parte do valor, por isso
+    // a leitura é feita caractere a caractere em vez de readLine (que também separa em CR isolado).
+    // Como em parseLine, o delimitador só abre um campo delimitado no início do campo (início do
+    // registro ou logo após o separador); no meio de um campo não delimitado (ex.: 12" cano) é literal
+    String readRecord(BufferedReader reader) throws IOException {
+        boolean hasEnclosure = enclosureCharacter != null && !enclosureCharacter.isEmpty();
+        char enclosure = hasEnclosure ? enclosureCharacter.charAt(0) : 0;
+        StringBuilder record = new StringBuilder();
+        boolean insideEnclosure = false;
+        boolean fieldStart = true;
+        boolean closed = false; // O caractere anterior fechou um campo delimitado
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (insideEnclosure) {
+                if (c == enclosure) {
+                    insideEnclosure = false;
+                    closed = true;
+                }
+                record.append((char) c);
+                continue;
+            }
+            if (c == '\n') {
+                int length = record.length();
+                if (length > 0 && record.charAt(length - 1) == '\r') {
+                    record.setLength(length - 1);
+                }
+                return record.toString();
+            }
+            if (hasEnclosure && c == enclosure && (fieldStart || closed)) {
+                // Abre o campo, ou é a segunda metade de um delimitador duplicado
+                insideEnclosure = true;
+            }
+            closed = false;
+            record.append((char) c);
+            fieldStart = endsWithSeparator(record);
+        }
+        return record.length() > 0 ? record.toString() : null;
+    }
+
+    private boolean endsWithSeparator(StringBuilder record) {
+        int separatorLength = columnSeparator.length();
+        int offset = record.length() - separatorLength;
+        if (offset < 0) {
+            return false;
+        }
+        for (int i = 0; i < separatorLength; i++) {
+            if (record.charAt(offset + i) != columnSeparator.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Separa um registro em campos segundo a RFC 4180: delimitadores duplicados viram um delimitador
+    // literal, separadores dentro de delimitadores fazem parte do valor e um separador no fim do
+    // registro gera um último campo vazio
+    String[] parseLine(String line) {
+        if (line.isEmpty()) {
+            return new String[0];
+        }
+        boolean hasEnclosure = enclosureCharacter != null && !enclosureCharacter.isEmpty();
+        char enclosure = hasEnclosure ? enclosureCharacter.charAt(0) : 0;
+        int separatorLength = columnSeparator.length();
+        List<String> fields = new ArrayList<>();
+        int i = 0;
+        int length = line.length();
+
+        while (true) {
+            if (hasEnclosure && i < length && line.charAt(i) == enclosure) {
+                StringBuilder field = new StringBuilder();
+                i++;
+                while (i < length) {
+                    char c = line.charAt(i++);
+                    if (c == enclosure) {
+                        if (i < length && line.charAt(i) == enclosure) {
+                            i++; // Delimitador duplicado
+                        } else {
+                            break;
+                        }
+                    }
+                    field.append(c);
+                }
+                // Caracteres entre o delimitador de fechamento e o separador são descartados
+                while (i < length && !line.startsWith(columnSeparator, i)) {
+                    i++;
+                }
+                fields.add(field.toString());
+            } else {
+                int separatorIndex = line.indexOf(columnSeparator, i);
+                int end = separatorIndex < 0 ? length : separatorIndex;
+                fields.add(line.substring(i, end));
+                i = end;
+            }
+
+            if (i >= length) {
+                break;
+            }
+            i += separatorLength;
+        }
+
+        return fields.toArray(new String[0]);
+    }
+    
+    // Grava o registro no .bad no mesmo formato do CSV, para que possa ser corrigido e recarregado
+    public synchronized void writeBadRecord(String[] badData) throws IOException {
+        if (badFileWriter == null) {
+            File badFile = new File(csvFilePath + ".bad");
+            badFileWriter = new AsyncLineWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(badFile, true), csvCharset)), "loader-bad-writer", BAD_QUEUE_CAPACITY, true);
+        }
+
+        StringBuilder badRecord = new StringBuilder();
+        for (int i = 0; i < badData.length; i++) {
+            if (i > 0) {
+                badRecord.append(columnSeparator);
+            }
+            appendBadField(badRecord, badData[i]);
+        }
+        badFileWriter.write(badRecord.toString());
+        Log.trace("Linha com erro gravada no .bad: " + badRecord);
+    }
+
+    // Campos com separador, delimitador ou quebra de linha vão entre delimitadores, com os
+    // delimitadores internos duplicados (RFC 4180), como a leitura espera
+    private void appendBadField(StringBuilder record, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean hasEnclosure = enclosureCharacter != null && !enclosureCharacter.isEmpty();
+        if (!hasEnclosure || !(value.contains(columnSeparator) || value.contains(enclosureCharacter)
+                || value.indexOf('\r') >= 0 || value.indexOf('\n') >= 0)) {
+            record.append(value);
+            return;
+        }
+        record.append(enclosureCharacter)
+                .append(value.replace(enclosureCharacter, enclosureCharacter + enclosureCharacter))
+                .append(enclosureCharacter);
+    }
+
+    // Registro rejeitado pelo banco: o código e a primeira linha da mensagem do erro vão como dois campos extras
+    public void writeBadRecord(String[] badData, int errorCode, String errorMessage) throws IOException {
+        String message = errorMessage == null ? "" : errorMessage.split("\\R", 2)[0];
+        String[] record = Arrays.copyOf(badData, badData.length + 2);
+        record[badData.length] = String.valueOf(errorCode);
+        record[badData.length + 1] = message;
+        writeBadRecord(record);
+    }
+
+    public synchronized void closeBadFileWriter() throws IOException {
+        if (badFileWriter != null) {
+            badFileWriter.close();
+            badFileWriter = null; // Um novo registro rejeitado reabre o arquivo em modo de acréscimo
+        }
+    }
+    
+    /**
+     * Preenche 'batch' (esvaziado antes) com até 'maxRows' registros a partir da posição corrente e
+     * retorna quantos foram lidos; zero indica o fim do arquivo. Registros com quantidade de campos
+     * diferente das colunas do lote vão para o .bad e são contados em {@link ColumnarBatch#getRejected()}.
+     * Na leitura sequencial por bytes os campos vão direto do tokenizador para as colunas do lote.
+     */
+    public int fillBatch(ColumnarBatch batch, int maxRows) throws IOException {
+        batch.clear();
+        int limit = Math.min(maxRows, batch.getCapacity());
+        int rejected = 0;
+        while (batch.size() < limit) {
+            if (tokenizer != null) {
+                int skipped = nextRecordFromTokenizer(batch);
+                if (skipped < 0) {
+                    break;
+                }
+                rejected += skipped;
+                continue;
+            }
+            String[] values = nextRecord();
+            if (values == null) {
+                break;
+            }
+            if (values.length != batch.getColumnCount()) {
+                writeBadRecord(values);
+                rejected++;
+                continue;
+            }
+            batch.addRow(values);
+        }
+        batch.finishFill(getPosition(), getRecordsRead(), rejected);
+        return batch.size();
+    }
+
+    /**
+     * Próximo registro de dados, ou nulo no fim do arquivo. O cabeçalho e as linhas em branco são
+     * pulados (as linhas em branco contam em {@link #getRecordsRead()}).
+     */
+    public String[] nextRecord() throws IOException {
+        if (chunkReader != null) {
+            String[] values = chunkReader.nextRecord();
+            for (String[] rejected : chunkReader.takeRejected()) {
+                writeBadRecord(rejected);
+            }
+            return values;
+        }
+        if (tokenizer != null) {
+            return nextRecordFromTokenizer();
+        }
+        if (br == null) {
+            br = new BufferedReader(new InputStreamReader(openInput(), csvCharset));
+        }
+
+        // Pula a primeira linha se for o cabeçalho e ainda não tiver sido processado
+        if (!headerProcessed) {
+            readRecord(br);
+            headerProcessed = true;
+        }
+
+        String line;
+        while ((line = readRecord(br)) != null) {
+            recordsRead++;
+            String[] values = parseLine(line);
+            if (values.length == 0) {
+                continue;
+            }
+            if (interners != null) {
+                for (int i = 0; i < values.length; i++) {
+                    StringInterner interner = StringInterner.forField(interners, i);
+                    if (interner != null) {
+                        values[i] = interner.intern(values[i]);
+                    }
+                }
+            }
+            if (columnMapping == null) {
+                return values;
+            }
+            if (values.length == columnMapping.getFieldCount()) {
+                return columnMapping.project(values);
+            }
+            writeBadRecord(values);
+        }
+        return null;
+    }
+
+    private String[] nextRecordFromTokenizer() throws IOException {
+        while (nextTokenizerRecord()) {
+            int fieldCount = tokenizer.getFieldCount();
+            if (columnMapping != null && fieldCount == columnMapping.getFieldCount()) {
+                // Só os campos mapeados viram String
+                int[] fieldIndexes = columnMapping.getFieldIndexes();
+                String[] values = new String[fieldIndexes.length];
+                for (int i = 0; i < fieldIndexes.length; i++) {
+                    values[i] = tokenizer.getString(fieldIndexes[i], StringInterner.forField(interners, fieldIndexes[i]));
+                }
+                return values;
+            }
+            String[] values = tokenizerFields();
+            if (columnMapping == null) {
+                return values;
+            }
+            writeBadRecord(values);
+        }
+        return null;
+    }
+
+    // Grava o próximo registro do tokenizador numa nova linha do lote, sem String[] intermediário.
+    // Retorna os registros enviados ao .bad antes dele, ou -1 no fim do arquivo.
+    private int nextRecordFromTokenizer(ColumnarBatch batch) throws IOException {
+        int columns = batch.getColumnCount();
+        int[] fieldIndexes = columnMapping != null ? columnMapping.getFieldIndexes() : null;
+        int expectedFields = columnMapping != null ? columnMapping.getFieldCount() : columns;
+        int rejected = 0;
+        while (nextTokenizerRecord()) {
+            if (tokenizer.getFieldCount() != expectedFields) {
+                writeBadRecord(tokenizerFields());
+                rejected++;
+                continue;
+            }
+            int row = batch.addRow();
+            for (int i = 0; i < columns; i++) {
+                int field = fieldIndexes != null ? fieldIndexes[i] : i;
+                batch.setText(i, row, tokenizer.getString(field, StringInterner.forField(interners, field)));
+            }
+            return rejected;
+        }
+        return rejected > 0 ? rejected : -1;
+    }
+
+    // Avança o tokenizador até o próximo registro com campos, pulando o cabeçalho e as linhas em branco
+    private boolean nextTokenizerRecord() throws IOException {
+        if (!headerProcessed) {
+            tokenizer.nextRecord();
+            headerProcessed = true;
+        }
+        while (tokenizer.nextRecord()) {
+            recordsRead++;
+            if (tokenizer.getFieldCount() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Todos os campos do registro corrente do tokenizador
+    private String[] tokenizerFields() {
+        int fieldCount = tokenizer.getFieldCount();
+        String[] values = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            values[i] = tokenizer.getString(i, StringInterner.forField(interners, i));
+        }
+        return values;
+    }
+
+    /**
+     * Campos do cabeçalho (primeiro registro do arquivo), sem espaços nas bordas e sem o BOM do
+     * UTF-8. Lido num stream próprio, não interfere na leitura dos registros.
+     */
+    public String[] readHeader() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(openInput(), csvCharset))) {
+            String line = readRecord(reader);
+            if (line == null) {
+                throw new EOFException("Arquivo CSV vazio, sem cabeçalho: " + csvFilePath);
+            }
+            if (line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+            String[] header = parseLine(line);
+            for (int i = 0; i < header.length; i++) {
+                header[i] = header[i].trim();
+            }
+            return header;
+        }
+    }
+
+    /**
+     * Associa os campos do arquivo às colunas de carga pelo cabeçalho ({@link ColumnMapping}); os
+     * registros passam a ter só as colunas da TableMetadata do parser, na ordem dela, e os registros
+     * com quantidade de campos diferente da do cabeçalho vão para o .bad. Todas as colunas da
+     * TableMetadata precisam estar no arquivo. Deve ser chamado antes da leitura do primeiro registro.
+     */
+    public void setColumnMapping(String spec) throws IOException {
+        if (ColumnMapping.isPositional(spec)) {
+            return;
+        }
+        if (headerProcessed) {
+            throw new IllegalStateException("O mapeamento de colunas deve ser definido antes da leitura do arquivo.");
+        }
+        ColumnMapping mapping = ColumnMapping.resolve(spec, readHeader(), tableMetadata.getColumns());
+        if (mapping.getColumnNames().size() != tableMetadata.getColumns().size()) {
+            List<String> missing = new ArrayList<>();
+            for (TableMetadata.ColumnMetadata column : tableMetadata.getColumns()) {
+                if (!mapping.getColumnNames().contains(column.getName())) {
+                    missing.add(column.getName());
+                }
+            }
+            throw new IOException("Colunas da carga ausentes no cabeçalho de " + csvFilePath + ": " + String.join(", ", missing));
+        }
+        columnMapping = mapping;
+        if (chunkReader != null) {
+            chunkReader.setColumnMapping(mapping);
+        }
+        Log.debug("Mapeamento por cabeçalho em " + csvFilePath + ": " + mapping.getColumnNames().size() + " de " + mapping.getFieldCount() + " campos carregados.");
+    }
+
+    /**
+     * Reaproveita as Strings de valores repetidos ({@link InternMode}): em AUTO, só nos campos com
+     * poucos valores distintos nos primeiros {@link #INTERN_SAMPLE_RECORDS} registros. Deve ser
+     * chamado antes da leitura do primeiro registro e depois de {@link #setColumnMapping(String)}.
+     */
+    public void setInternStrings(InternMode mode) throws IOException {
+        if (mode == InternMode.OFF) {
+            return;
+        }
+        if (headerProcessed) {
+            throw new IllegalStateException("O reaproveitamento de Strings deve ser definido antes da leitura do arquivo.");
+        }
+        String[] header = readHeader();
+        boolean[] fields = new boolean[header.length];
+        if (mode == InternMode.ON) {
+            Arrays.fill(fields, true);
+        } else {
+            fields = sampleLowCardinalityFields(header.length);
+        }
+        if (columnMapping != null) {
+            // Campos fora do mapeamento nem chegam a virar String
+            boolean[] mapped = new boolean[fields.length];
+            for (int field : columnMapping.getFieldIndexes()) {
+                mapped[field] = fields[field];
+            }
+            fields = mapped;
+        }
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i]) {
+                names.add(header[i]);
+            }
+        }
+        if (names.isEmpty()) {
+            Log.debug("Nenhum campo com poucos valores distintos em " + csvFilePath + "; Strings não reaproveitadas.");
+            return;
+        }
+        internFields = fields;
+        interners = StringInterner.forFields(fields);
+        if (chunkReader != null) {
+            chunkReader.setInternFields(fields);
+        }
+        Log.info("Strings reaproveitadas (" + mode + ") em " + names.size() + " de " + fields.length + " campos: " + String.join(", ", names));
+    }
+
+    // Campos com poucos valores distintos numa amostra do início do arquivo, lida num stream próprio
+    private boolean[] sampleLowCardinalityFields(int fieldCount) throws IOException {
+        List<Set<String>> distinct = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            distinct.add(new HashSet<>());
+        }
+        int sampled = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(openInput(), csvCharset))) {
+            readRecord(reader); // Cabeçalho
+            String line;
+            while (sampled < INTERN_SAMPLE_RECORDS && (line = readRecord(reader)) != null) {
+                String[] values = parseLine(line);
+                if (values.length != fieldCount) {
+                    continue;
+                }
+                sampled++;
+                for (int i = 0; i < fieldCount; i++) {
+                    Set<String> fieldValues = distinct.get(i);
+                    if (fieldValues != null && fieldValues.add(values[i]) && fieldValues.size() > StringInterner.MAX_ENTRIES) {
+                        distinct.set(i, null); // Valores demais para o cache
+                    }
+                }
+            }
+        }
+        boolean[] fields = new boolean[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            Set<String> values = distinct.get(i);
+            fields[i] = sampled > 0 && values != null && values.size() * LOW_CARDINALITY_RATIO <= sampled;
+        }
+        return fields;
+    }
+
+    /**
+     * Ativa o parse paralelo: o arquivo é dividido em trechos tokenizados por 'threads' threads.
+     * Exige o tokenizador de bytes e arquivo não compactado; nos demais casos, e em arquivos pequenos,
+     * a leitura continua sequencial. Deve ser chamado antes da leitura do primeiro registro. A posição
+     * em bytes deixa de ser informada, portanto a carga não pode ser reiniciável.
+     */
+    public void setParseThreads(int threads, ParseOrder order) throws IOException {
+        if (threads <= 1) {
+            return;
+        }
+        if (tokenizer == null || compression != CompressedInput.Format.NONE) {
+            Log.warn("parse paralelo exige arquivo não compactado em charset de um byte ou UTF-8; PARSE_THREADS=" + threads + " ignorado para " + csvFilePath);
+            return;
+        }
+        if (csvFile.length() < 2 * ParallelChunkReader.CHUNK_SIZE) {
+            Log.debug("Arquivo pequeno para parse paralelo, leitura sequencial: " + csvFilePath);
+            return;
+        }
+        if (headerProcessed) {
+            throw new IllegalStateException("O parse paralelo deve ser ativado antes da leitura do arquivo.");
+        }
+        tokenizer.close();
+        tokenizer = null;
+        chunkReader = new ParallelChunkReader(csvFile, csvCharset, columnSeparator, enclosureCharacter, threads, order);
+        chunkReader.setColumnMapping(columnMapping);
+        chunkReader.setInternFields(internFields);
+        Log.info("Parse paralelo com " + threads + " threads (" + order + ").");
+    }
+
+    // Dados do arquivo, já descompactados se for o caso
+    private InputStream openInput() throws IOException {
+        return compression == CompressedInput.Format.NONE ? new FileInputStream(csvFile) : CompressedInput.open(csvFile, compression);
+    }
+
+    // Tokenizador a partir de 'position'; no arquivo compactado os bytes anteriores são descompactados e descartados
+    private CSVTokenizer openTokenizer(long position) throws IOException {
+        if (compression == CompressedInput.Format.NONE) {
+            return new CSVTokenizer(csvFile, csvCharset, columnSeparator, enclosureCharacter, position);
+        }
+        InputStream in = openInput();
+        try {
+            long remaining = position;
+            while (remaining > 0) {
+                long skipped = in.skip(remaining);
+                if (skipped <= 0) {
+                    throw new EOFException("Posição " + position + " além do fim do arquivo descompactado: " + csvFilePath);
+                }
+                remaining -= skipped;
+            }
+            return new CSVTokenizer(in, csvCharset, columnSeparator, enclosureCharacter, position);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Posição em bytes do próximo registro a ser lido, ou -1 quando a leitura não é feita pelo
+     * tokenizador de bytes (nesse caso a retomada usa {@link #getRecordsRead()}). Em arquivo
+     * compactado, a posição é nos dados descompactados. No parse paralelo, é o total de bytes dos
+     * trechos já lidos: indica o progresso, mas não serve para retomada.
+     */
+    public long getPosition() {
+        if (chunkReader != null) {
+            return chunkReader.getBytesRead();
+        }
+        return tokenizer != null ? tokenizer.getPosition() : -1;
+    }
+
+    public long getRecordsRead() {
+        return chunkReader != null ? chunkReader.getRecordsRead() : recordsRead;
+    }
+
+    /**
+     * Retoma a leitura a partir de um checkpoint: posiciona o tokenizador direto no byte salvo ou,
+     * na leitura por caracteres, descarta os registros já lidos.
+     */
+    public void resumeFrom(long position, long records) throws IOException {
+        if (chunkReader != null) {
+            throw new IllegalStateException("A retomada de checkpoint não é suportada com parse paralelo.");
+        }
+        if (tokenizer != null && position >= 0) {
+            tokenizer.close();
+            tokenizer = openTokenizer(position);
+        } else {
+            if (tokenizer != null) {
+                tokenizer.close();
+                tokenizer = null;
+            }
+            if (br != null) {
+                br.close();
+            }
+            br = new BufferedReader(new InputStreamReader(openInput(), csvCharset));
+            readRecord(br); // Cabeçalho
+            for (long i = 0; i < records && readRecord(br) != null; i++) {
+                // Registros já carregados
+            }
+        }
+        headerProcessed = true;
+        recordsRead = records;
+    }
+
+    public String getCsvFilePath() {
+        return csvFilePath;
+    }
+
+    // Estima o número de linhas de dados a partir do tamanho do arquivo e da média de bytes por linha
+    // de uma amostra do início, evitando ler o arquivo inteiro só para contar linhas
+    private long estimateTotalRows() throws IOException {
+        long fileSize = getInputSize();
+        byte[] sample = new byte[(int) Math.min(fileSize, ROW_ESTIMATE_SAMPLE_BYTES)];
+        int sampled = 0;
+        boolean reachedEnd = false;
+        try (InputStream in = openInput()) {
+            int read = 0;
+            while (sampled < sample.length && (read = in.read(sample, sampled, sample.length - sampled)) > 0) {
+                sampled += read;
+            }
+            reachedEnd = read < 0;
+        }
+
+        long lines = 0;
+        for (int i = 0; i < sampled; i++) {
+            if (sample[i] == '\n') {
+                lines++;
+            }
+        }
+        if (sampled == fileSize || reachedEnd) {
+            // Arquivo inteiro amostrado: a contagem é exata (a última linha pode não ter quebra)
+            if (sampled > 0 && sample[sampled - 1] != '\n') {
+                lines++;
+            }
+        } else if (lines > 0) {
+            lines = Math.round((double) fileSize * lines / sampled);
+        } else {
+            lines = 1; // Nenhuma quebra na amostra: linhas maiores que a própria amostra
+        }
+        return Math.max(0, lines - 1); // Desconta o cabeçalho
+    }
+    
+    public void closeResources() throws IOException {
+        if (br != null) {
+            br.close();
+        }
+        if (chunkReader != null) {
+            chunkReader.close();
+        }
+        if (tokenizer != null) {
+            tokenizer.close();
+        }
+        closeBadFileWriter();
+    }
+
+    /**
+     * Tamanho em bytes dos dados do arquivo; em arquivo compactado, o tamanho descompactado estimado.
+     */
+    public long getInputSize() throws IOException {
+        if (inputSize < 0) {
+            inputSize = CompressedInput.estimateUncompressedSize(csvFile, compression);
+        }
+        return inputSize;
+    }
+
+    public long getEstimatedTotalRows() throws IOException {
+        if (estimatedTotalRows < 0) {
+            estimatedTotalRows = estimateTotalRows();
+        }
+        return estimatedTotalRows;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,380 @@
+package com.loader.csv;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Tokenizador de CSV que trabalha diretamente sobre os bytes do arquivo (FileChannel/ByteBuffer),
+ * sem decodificar linhas inteiras para String. Separadores e delimitadores são localizados em bytes,
+ * o que é seguro para charsets de um byte e para UTF-8 (bytes ASCII nunca aparecem dentro de uma
+ * sequência multibyte). Os campos do registro corrente ficam expostos como faixas (início/fim) do
+ * buffer e só viram String quando {@link #getString(int)} é chamado.
+ *
+ * A separação segue a RFC 4180: campos delimitados podem conter separadores, quebras de linha (CR/LF)
+ * e delimitadores duplicados ({@code ""}), que são convertidos em um único delimitador ao materializar;
+ * um separador no fim do registro produz um último campo vazio. O separador pode ter mais de um
+ * caractere.
+ *
+ * Também lê de um InputStream (ex.: arquivo descompactado em streaming); nesse caso as posições se
+ * referem aos bytes já descompactados.
+ *
+ * As faixas são válidas apenas até a próxima chamada de {@link #nextRecord()}.
+ */
+public class CSVTokenizer implements Closeable {
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    // Arquivos a partir deste tamanho são lidos por mapeamento em memória, em janelas
+    private static final long MMAP_THRESHOLD = 64L * 1024 * 1024;
+    private static final int MMAP_WINDOW = 256 * 1024 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final FileChannel fileChannel; // Nulo na leitura de um stream
+    private final long fileSize;
+    private final boolean mapped;
+    private final Charset charset;
+    private final byte[] separator;
+    private final byte separatorFirst;
+    private final byte enclosure;
+    private final boolean hasEnclosure;
+
+    private ByteBuffer buffer;
+    private byte[] array; // Array de apoio quando o buffer não é mapeado
+    private ByteBuffer view; // Cópia de posição independente usada para materializar campos mapeados
+    private long bufferOffset; // Posição no arquivo correspondente ao índice 0 do buffer
+    private int pos;
+    private int limit;
+    private boolean eof;
+
+    private int[] starts = new int[64];
+    private int[] ends = new int[64];
+    private boolean[] escaped = new boolean[64]; // Campo contém delimitadores duplicados
+    private int fieldCount;
+    private long recordOffset;
+    private byte[] scratch = new byte[256];
+
+    public CSVTokenizer(File file, Charset charset, String columnSeparator, String enclosureCharacter) throws IOException {
+        this(file, charset, columnSeparator, enclosureCharacter, 0L);
+    }
+
+    public CSVTokenizer(File file, Charset charset, String columnSeparator, String enclosureCharacter, long startOffset) throws IOException {
+        this(FileChannel.open(file.toPath(), StandardOpenOption.READ), charset, columnSeparator, enclosureCharacter, startOffset, true);
+    }
+
+    // Sem mapeamento em memória: para ler só um trecho do arquivo, sem mapear uma janela inteira
+    CSVTokenizer(File file, Charset charset, String columnSeparator, String enclosureCharacter, long startOffset, boolean allowMapping) throws IOException {
+        this(FileChannel.open(file.toPath(), StandardOpenOption.READ), charset, columnSeparator, enclosureCharacter, startOffset, allowMapping);
+    }
+
+    /**
+     * Lê do stream a partir da posição atual dele; 'startOffset' é a posição que essa leitura
+     * representa (bytes já consumidos do stream), usada em {@link #getPosition()}.
+     */
+    public CSVTokenizer(InputStream in, Charset charset, String columnSeparator, String enclosureCharacter, long startOffset) throws IOException {
+        this(Channels.newChannel(in), charset, columnSeparator, enclosureCharacter, startOffset, false);
+    }
+
+    private CSVTokenizer(ReadableByteChannel channel, Charset charset, String columnSeparator, String enclosureCharacter, long startOffset, boolean allowMapping) throws IOException {
+        if (!supports(charset, columnSeparator, enclosureCharacter)) {
+            channel.close();
+            throw new IllegalArgumentException("Charset ou separadores não suportados pelo tokenizador de bytes: " + charset);
+        }
+        this.channel = channel;
+        this.fileChannel = channel instanceof FileChannel ? (FileChannel) channel : null;
+        this.fileSize = fileChannel != null ? fileChannel.size() : -1;
+        this.mapped = allowMapping && fileSize >= MMAP_THRESHOLD;
+        this.charset = charset;
+        this.separator = columnSeparator.getBytes(charset);
+        this.separatorFirst = separator[0];
+        this.hasEnclosure = enclosureCharacter != null && !enclosureCharacter.isEmpty();
+        this.enclosure = hasEnclosure ? enclosureCharacter.getBytes(charset)[0] : 0;
+        this.bufferOffset = startOffset;
+        if (!mapped) {
+            this.array = new byte[BUFFER_SIZE];
+            this.buffer = ByteBuffer.wrap(array);
+            if (fileChannel != null) {
+                fileChannel.position(startOffset);
+            }
+        }
+        this.limit = 0;
+    }
+
+    /**
+     * Indica se o tokenizador de bytes pode ser usado: charsets de um byte ou UTF-8, com separador ASCII
+     * (de um ou mais caracteres) e delimitador de um único caractere ASCII.
+     */
+    public static boolean supports(Charset charset, String columnSeparator, String enclosureCharacter) {
+        boolean byteCharset = charset.equals(StandardCharsets.UTF_8) || charset.newEncoder().maxBytesPerChar() == 1.0f;
+        boolean enclosureOk = enclosureCharacter == null || enclosureCharacter.isEmpty()
+                || (enclosureCharacter.length() == 1 && isAscii(enclosureCharacter));
+        return byteCharset && columnSeparator != null && !columnSeparator.isEmpty() && isAscii(columnSeparator) && enclosureOk;
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80 || value.charAt(i) == '\n' || value.charAt(i) == '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Avança para o próximo registro. Retorna false no fim do arquivo.
+     */
+    public boolean nextRecord() throws IOException {
+        while (true) {
+            if (pos >= limit && eof) {
+                return false;
+            }
+            // No fim do arquivo scanRecord sempre fecha o registro, mesmo sem quebra de linha final
+            int next = scanRecord(pos);
+            if (next >= 0) {
+                recordOffset = bufferOffset + pos;
+                pos = next;
+                return true;
+            }
+            fill();
+        }
+    }
+
+    // Separa os campos do registro que começa em 'from' (máquina de estados da RFC 4180). Retorna o
+    // índice do início do próximo registro, ou -1 se o buffer terminou antes do fim do registro
+    // (exceto no fim do arquivo, quando o registro é fechado onde os dados acabam).
+    private int scanRecord(int from) {
+        fieldCount = 0;
+        int i = from;
+        while (true) {
+            int start = i;
+            int end;
+            boolean quoted = false;
+            boolean hasEscapes = false;
+            if (hasEnclosure && i < limit && byteAt(i) == enclosure) {
+                // Campo delimitado: separadores e quebras de linha fazem parte do valor
+                quoted = true;
+                start = ++i;
+                while (true) {
+                    while (i < limit && byteAt(i) != enclosure) {
+                        i++;
+                    }
+                    if (i + 1 >= limit && !eof) {
+                        return -1; // Precisa do byte seguinte para distinguir "" de fechamento
+                    }
+                    if (i >= limit) {
+                        end = limit; // Delimitador não fechado no fim do arquivo
+                        break;
+                    }
+                    if (i + 1 < limit && byteAt(i + 1) == enclosure) {
+                        hasEscapes = true;
+                        i += 2;
+                        continue;
+                    }
+                    end = i++;
+                    break;
+                }
+                // Caracteres entre o delimitador de fechamento e o separador são descartados
+                while (i < limit && !isSeparatorAt(i) && byteAt(i) != '\n') {
+                    i++;
+                }
+            } else {
+                while (i < limit) {
+                    byte b = byteAt(i);
+                    if (b == '\n' || (b == separatorFirst && isSeparatorAt(i))) {
+                        break;
+                    }
+                    i++;
+                }
+                end = i;
+            }
+
+            if (i >= limit) {
+                if (!eof) {
+                    return -1;
+                }
+                return finishRecord(start, quoted ? end : trimCarriageReturn(start, end), quoted, hasEscapes, limit);
+            }
+            if (byteAt(i) != '\n') {
+                addField(start, end, hasEscapes);
+                i += separator.length;
+                continue;
+            }
+            // Quebra de linha fora de delimitadores: fim do registro
+            return finishRecord(start, quoted ? end : trimCarriageReturn(start, end), quoted, hasEscapes, i + 1);
+        }
+    }
+
+    // Compara o separador (possivelmente com vários bytes) a partir de 'index'. Um separador cortado
+    // pelo fim do buffer não é reconhecido aqui; scanRecord pede mais dados nesse caso.
+    private boolean isSeparatorAt(int index) {
+        if (byteAt(index) != separatorFirst) {
+            return false;
+        }
+        if (index + separator.length > limit) {
+            return false;
+        }
+        for (int k = 1; k < separator.length; k++) {
+            if (byteAt(index + k) != separator[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int finishRecord(int start, int end, boolean quoted, boolean hasEscapes, int next) {
+        if (fieldCount > 0 || end > start || quoted) {
+            addField(start, end, hasEscapes);
+        }
+        // Linha vazia: registro sem campos
+        return next;
+    }
+
+    private int trimCarriageReturn(int start, int end) {
+        return end > start && byteAt(end - 1) == '\r' ? end - 1 : end;
+    }
+
+    private void addField(int start, int end, boolean hasEscapes) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+            escaped = Arrays.copyOf(escaped, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        escaped[fieldCount] = hasEscapes;
+        fieldCount++;
+    }
+
+    private byte byteAt(int index) {
+        return array != null ? array[index] : buffer.get(index);
+    }
+
+    // Descarta os bytes já consumidos e traz mais dados do arquivo a partir do registro corrente
+    private void fill() throws IOException {
+        long recordStart = bufferOffset + pos;
+        if (mapped) {
+            int previous = limit - pos;
+            long size = Math.min(Math.max(MMAP_WINDOW, 2L * previous), fileSize - recordStart);
+            if (size > Integer.MAX_VALUE) {
+                size = Integer.MAX_VALUE;
+            }
+            buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, recordStart, size);
+            view = buffer.duplicate();
+            bufferOffset = recordStart;
+            pos = 0;
+            limit = (int) size;
+            eof = recordStart + size >= fileSize;
+            return;
+        }
+
+        if (pos > 0) {
+            System.arraycopy(array, pos, array, 0, limit - pos);
+            limit -= pos;
+            bufferOffset = recordStart;
+            pos = 0;
+        }
+        if (limit == array.length) {
+            // Registro maior que o buffer
+            array = Arrays.copyOf(array, array.length * 2);
+            buffer = ByteBuffer.wrap(array);
+        }
+        buffer.limit(array.length).position(limit);
+        int read = channel.read(buffer);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public int getFieldStart(int index) {
+        return starts[index];
+    }
+
+    public int getFieldLength(int index) {
+        return ends[index] - starts[index];
+    }
+
+    public boolean isFieldEmpty(int index) {
+        return ends[index] == starts[index];
+    }
+
+    /**
+     * Indica se o campo contém delimitadores duplicados; nesse caso os bytes da faixa ainda estão
+     * escapados e só {@link #getString(int)} devolve o valor final.
+     */
+    public boolean isFieldEscaped(int index) {
+        return escaped[index];
+    }
+
+    /**
+     * Materializa o campo como String no charset do arquivo.
+     */
+    public String getString(int index) {
+        return getString(index, null);
+    }
+
+    // Com 'interner', valores repetidos devolvem a mesma instância, sem decodificar de novo
+    String getString(int index, StringInterner interner) {
+        int start = starts[index];
+        int length = ends[index] - start;
+        if (length == 0) {
+            return "";
+        }
+        if (array != null && !escaped[index]) {
+            return newString(array, start, length, interner);
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        if (escaped[index]) {
+            // Converte cada par de delimitadores em um só
+            int out = 0;
+            for (int i = start; i < start + length; i++) {
+                byte b = byteAt(i);
+                scratch[out++] = b;
+                if (b == enclosure) {
+                    i++;
+                }
+            }
+            return newString(scratch, 0, out, interner);
+        }
+        view.limit(start + length).position(start);
+        view.get(scratch, 0, length);
+        return newString(scratch, 0, length, interner);
+    }
+
+    private String newString(byte[] bytes, int offset, int length, StringInterner interner) {
+        return interner != null ? interner.intern(bytes, offset, length, charset) : new String(bytes, offset, length, charset);
+    }
+
+    /**
+     * Posição no arquivo do registro corrente.
+     */
+    public long getRecordOffset() {
+        return recordOffset;
+    }
+
+    /**
+     * Posição no arquivo onde começa o próximo registro.
+     */
+    public long getPosition() {
+        return bufferOffset + pos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,134 @@
+package com.loader.csv;
+
+import com.loader.database.TableMetadata;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Associação entre os campos do CSV e as colunas da tabela, definida pelo parâmetro COLUMN_MAPPING:
+ * <ul>
+ * <li>POSITION: o campo i vai para a coluna i (comportamento original, sem projeção);</li>
+ * <li>HEADER: os nomes do cabeçalho são comparados aos nomes das colunas, sem diferenciar maiúsculas;</li>
+ * <li>lista explícita "campo_csv:COLUNA,...": só os pares informados são carregados.</li>
+ * </ul>
+ * Nos dois últimos casos, campos do CSV sem coluna correspondente são ignorados (nem chegam a virar
+ * String) e colunas da tabela sem campo ficam fora do comando, recebendo o valor padrão do banco.
+ * As colunas carregadas seguem a ordem da tabela.
+ */
+public class ColumnMapping {
+    public static final String POSITION = "POSITION";
+    public static final String HEADER = "HEADER";
+
+    private final List<String> columnNames;
+    private final int[] fieldIndexes;
+    private final int fieldCount;
+
+    private ColumnMapping(List<String> columnNames, int[] fieldIndexes, int fieldCount) {
+        this.columnNames = Collections.unmodifiableList(columnNames);
+        this.fieldIndexes = fieldIndexes;
+        this.fieldCount = fieldCount;
+    }
+
+    public static boolean isPositional(String spec) {
+        return spec == null || spec.trim().isEmpty() || spec.trim().equalsIgnoreCase(POSITION);
+    }
+
+    /**
+     * Resolve o mapeamento para o cabeçalho informado. Só as colunas de 'columns' com campo
+     * correspondente entram no resultado; quem exige todas deve comparar com {@link #getColumnNames()}.
+     */
+    public static ColumnMapping resolve(String spec, String[] header, List<TableMetadata.ColumnMetadata> columns) {
+        // Nome normalizado do campo do CSV -> índice no registro (a primeira ocorrência prevalece)
+        Map<String, Integer> headerIndexes = new LinkedHashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            headerIndexes.putIfAbsent(normalize(header[i]), i);
+        }
+
+        // Nome normalizado da coluna -> campo do CSV
+        Map<String, Integer> sourceFields = new LinkedHashMap<>();
+        if (spec.trim().equalsIgnoreCase(HEADER)) {
+            sourceFields.putAll(headerIndexes);
+        } else {
+            for (String pair : spec.split(",")) {
+                if (pair.trim().isEmpty()) {
+                    continue;
+                }
+                int colon = pair.lastIndexOf(':');
+                if (colon <= 0 || colon == pair.length() - 1) {
+                    throw new IllegalArgumentException("COLUMN_MAPPING inválido: '" + pair.trim() + "' (use campo_csv:COLUNA).");
+                }
+                String field = normalize(pair.substring(0, colon));
+                String column = normalize(pair.substring(colon + 1));
+                Integer index = headerIndexes.get(field);
+                if (index == null) {
+                    throw new IllegalArgumentException("COLUMN_MAPPING: campo " + pair.substring(0, colon).trim() + " não existe no cabeçalho do CSV.");
+                }
+                if (!hasColumn(columns, column)) {
+                    throw new IllegalArgumentException("COLUMN_MAPPING: coluna " + pair.substring(colon + 1).trim() + " não existe na tabela.");
+                }
+                if (sourceFields.put(column, index) != null) {
+                    throw new IllegalArgumentException("COLUMN_MAPPING: coluna " + pair.substring(colon + 1).trim() + " mapeada mais de uma vez.");
+                }
+            }
+        }
+
+        List<String> columnNames = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        for (TableMetadata.ColumnMetadata column : columns) {
+            Integer index = sourceFields.get(normalize(column.getName()));
+            if (index != null) {
+                columnNames.add(column.getName());
+                indexes.add(index);
+            }
+        }
+        if (columnNames.isEmpty()) {
+            throw new IllegalArgumentException("COLUMN_MAPPING: nenhum campo do cabeçalho corresponde a uma coluna da tabela.");
+        }
+        int[] fieldIndexes = new int[indexes.size()];
+        for (int i = 0; i < fieldIndexes.length; i++) {
+            fieldIndexes[i] = indexes.get(i);
+        }
+        return new ColumnMapping(columnNames, fieldIndexes, header.length);
+    }
+
+    private static boolean hasColumn(List<TableMetadata.ColumnMetadata> columns, String normalizedName) {
+        for (TableMetadata.ColumnMetadata column : columns) {
+            if (normalize(column.getName()).equals(normalizedName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // Colunas carregadas, na ordem da tabela
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    // Quantidade de campos do cabeçalho; registros com outra quantidade são rejeitados
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    // Índice do campo do CSV de cada coluna carregada
+    int[] getFieldIndexes() {
+        return fieldIndexes;
+    }
+
+    // Registro completo reduzido às colunas carregadas
+    String[] project(String[] record) {
+        String[] values = new String[fieldIndexes.length];
+        for (int i = 0; i < fieldIndexes.length; i++) {
+            values[i] = record[fieldIndexes[i]];
+        }
+        return values;
+    }
+}
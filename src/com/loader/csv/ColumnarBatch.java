@@ -0,0 +1,259 @@
+package com.loader.csv;
+
+import com.loader.util.ColumnConverter;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Lote de registros guardado por coluna e reaproveitado durante toda a carga: o CSVParser grava os
+ * textos lidos ({@link CSVParser#fillBatch}), o RowBinder grava ao lado os valores convertidos e o
+ * DataLoader os vincula ao PreparedStatement. Os arrays são alocados uma única vez, na capacidade
+ * máxima do lote, em vez de uma lista e um String[] (mais um Object[] no modo tipado) por linha.
+ *
+ * Em cada coluna, inteiros convertidos ficam num long[], sem Long, e os nulos e os inteiros são
+ * marcados em mapas de bits; os demais valores (texto, BigDecimal, Timestamp) ficam num Object[].
+ * Linhas com valor que não pôde ser convertido são marcadas com o motivo ({@link #setFailed}) e
+ * retiradas do lote por {@link #removeFailedRows()} antes do vínculo.
+ * Não é thread-safe: um lote pertence a uma thread de cada vez, passado adiante por filas.
+ */
+public class ColumnarBatch {
+    private final Column[] columns;
+    private final int capacity;
+    private int size;
+    private boolean converted;
+    private long position = -1;
+    private long recordsRead = -1;
+    private int rejected;
+    private final BitSet failedRows = new BitSet();
+    private String[] failures; // Motivo da falha de conversão, por linha; alocado na primeira falha
+
+    public ColumnarBatch(int columnCount, int capacity) {
+        this.columns = new Column[columnCount];
+        this.capacity = capacity;
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = new Column(capacity);
+        }
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public Column getColumn(int column) {
+        return columns[column];
+    }
+
+    // Registro original da linha, como lido do CSV (para o .bad)
+    public String[] getRow(int row) {
+        String[] values = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = columns[i].text[row];
+        }
+        return values;
+    }
+
+    // Marca a linha como não convertida; só o primeiro motivo é guardado
+    public void setFailed(int row, String message) {
+        if (failedRows.get(row)) {
+            return;
+        }
+        if (failures == null) {
+            failures = new String[capacity];
+        }
+        failedRows.set(row);
+        failures[row] = message;
+    }
+
+    public boolean isFailed(int row) {
+        return failedRows.get(row);
+    }
+
+    public String getFailure(int row) {
+        return failedRows.get(row) ? failures[row] : null;
+    }
+
+    public boolean hasFailedRows() {
+        return !failedRows.isEmpty();
+    }
+
+    /**
+     * Retira do lote as linhas marcadas com {@link #setFailed}, mantendo a ordem das demais.
+     */
+    public void removeFailedRows() {
+        int kept = 0;
+        for (int row = 0; row < size; row++) {
+            if (failedRows.get(row)) {
+                continue;
+            }
+            if (kept != row) {
+                for (Column column : columns) {
+                    column.moveRow(row, kept);
+                }
+            }
+            kept++;
+        }
+        for (Column column : columns) {
+            column.clear(kept, size);
+        }
+        Arrays.fill(failures, 0, size, null);
+        failedRows.clear();
+        size = kept;
+    }
+
+    // Verdadeiro depois que o RowBinder converteu o lote
+    public boolean isConverted() {
+        return converted;
+    }
+
+    public void setConverted(boolean converted) {
+        this.converted = converted;
+    }
+
+    // Posição do parser logo após ler o lote, usada no checkpoint
+    public long getPosition() {
+        return position;
+    }
+
+    public long getRecordsRead() {
+        return recordsRead;
+    }
+
+    // Registros enviados ao .bad durante o preenchimento, por quantidade de campos inválida
+    public int getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Esvazia o lote para reutilização; as referências da carga anterior são liberadas.
+     */
+    public void clear() {
+        for (Column column : columns) {
+            column.clear(0, size);
+        }
+        if (failures != null) {
+            Arrays.fill(failures, 0, size, null);
+        }
+        failedRows.clear();
+        size = 0;
+        converted = false;
+        position = -1;
+        recordsRead = -1;
+        rejected = 0;
+    }
+
+    // Reserva a próxima linha e retorna o seu índice; os textos são gravados com setText
+    int addRow() {
+        if (size == capacity) {
+            throw new IllegalStateException("Lote cheio (" + capacity + " linhas).");
+        }
+        return size++;
+    }
+
+    void addRow(String[] values) {
+        int row = addRow();
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].text[row] = values[i];
+        }
+    }
+
+    void setText(int column, int row, String value) {
+        columns[column].text[row] = value;
+    }
+
+    void finishFill(long position, long recordsRead, int rejected) {
+        this.position = position;
+        this.recordsRead = recordsRead;
+        this.rejected = rejected;
+    }
+
+    /**
+     * Valores de uma coluna do lote: o texto lido e, depois da conversão, o valor a vincular.
+     */
+    public static final class Column implements ColumnConverter.TypedColumn {
+        private final String[] text;
+        private final Object[] values;
+        private final BitSet nulls = new BitSet();
+        private final BitSet longBits = new BitSet();
+        private long[] longs; // Alocado na primeira linha inteira da coluna
+
+        private Column(int capacity) {
+            this.text = new String[capacity];
+            this.values = new Object[capacity];
+        }
+
+        public String getText(int row) {
+            return text[row];
+        }
+
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        public boolean isLong(int row) {
+            return longBits.get(row);
+        }
+
+        public long getLong(int row) {
+            return longs[row];
+        }
+
+        public Object getObject(int row) {
+            return values[row];
+        }
+
+        @Override
+        public void setNull(int row) {
+            nulls.set(row);
+            longBits.clear(row);
+            values[row] = null;
+        }
+
+        @Override
+        public void setLong(int row, long value) {
+            if (longs == null) {
+                longs = new long[text.length];
+            }
+            longs[row] = value;
+            longBits.set(row);
+            nulls.clear(row);
+            values[row] = null;
+        }
+
+        @Override
+        public void setObject(int row, Object value) {
+            values[row] = value;
+            nulls.clear(row);
+            longBits.clear(row);
+        }
+
+        private void moveRow(int from, int to) {
+            text[to] = text[from];
+            values[to] = values[from];
+            nulls.set(to, nulls.get(from));
+            longBits.set(to, longBits.get(from));
+            if (longs != null) {
+                longs[to] = longs[from];
+            }
+        }
+
+        // Libera as linhas [from, to)
+        private void clear(int from, int to) {
+            Arrays.fill(text, from, to, null);
+            Arrays.fill(values, from, to, null);
+            nulls.clear(from, to);
+            longBits.clear(from, to);
+        }
+    }
+}
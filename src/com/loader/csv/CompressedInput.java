@@ -0,0 +1,146 @@
+package com.loader.csv;
+
+import com.loader.util.ReadAheadInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Leitura de arquivos CSV compactados sem descompactar em disco. O formato é identificado pelos
+ * primeiros bytes do arquivo (ou, se não reconhecidos, pela extensão) e os dados são descompactados
+ * em streaming, por uma thread de leitura antecipada que roda em paralelo com o parse.
+ *
+ * gzip usa o GZIPInputStream do JDK (inclusive arquivos com vários membros concatenados). zstd usa
+ * a biblioteca zstd-jni (com.github.luben:zstd-jni), carregada por reflexão apenas quando necessária.
+ */
+public final class CompressedInput {
+
+    public enum Format {
+        NONE, GZIP, ZSTD
+    }
+
+    private static final int INFLATE_BUFFER = 64 * 1024;
+    private static final int READ_AHEAD_CHUNK = 1024 * 1024;
+    private static final int READ_AHEAD_CHUNKS = 4;
+    private static final int SIZE_SAMPLE_BYTES = 4 * 1024 * 1024;
+    private static final String ZSTD_INPUT_STREAM = "com.github.luben.zstd.ZstdInputStream";
+
+    private CompressedInput() {
+    }
+
+    public static Format detect(File file) throws IOException {
+        byte[] magic = new byte[4];
+        int read = 0;
+        try (InputStream in = new FileInputStream(file)) {
+            int n;
+            while (read < magic.length && (n = in.read(magic, read, magic.length - read)) > 0) {
+                read += n;
+            }
+        }
+        if (read >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) {
+            return Format.GZIP;
+        }
+        if (read == 4 && (magic[0] & 0xFF) == 0x28 && (magic[1] & 0xFF) == 0xB5 && (magic[2] & 0xFF) == 0x2F && (magic[3] & 0xFF) == 0xFD) {
+            return Format.ZSTD;
+        }
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz") || name.endsWith(".gzip")) {
+            return Format.GZIP;
+        }
+        if (name.endsWith(".zst") || name.endsWith(".zstd")) {
+            return Format.ZSTD;
+        }
+        return Format.NONE;
+    }
+
+    /**
+     * Abre o arquivo já descompactado, com leitura antecipada em uma thread própria.
+     */
+    public static InputStream open(File file, Format format) throws IOException {
+        return new ReadAheadInputStream(decompress(new FileInputStream(file), format), "loader-inflate", READ_AHEAD_CHUNK, READ_AHEAD_CHUNKS);
+    }
+
+    private static InputStream decompress(InputStream in, Format format) throws IOException {
+        try {
+            switch (format) {
+                case GZIP:
+                    return new GZIPInputStream(in, INFLATE_BUFFER);
+                case ZSTD:
+                    return openZstd(in);
+                default:
+                    return in;
+            }
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static InputStream openZstd(InputStream in) throws IOException {
+        try {
+            Class<?> zstd = Class.forName(ZSTD_INPUT_STREAM);
+            return (InputStream) zstd.getConstructor(InputStream.class).newInstance(in);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Arquivo zstd requer a biblioteca zstd-jni (com.github.luben:zstd-jni) no classpath.", e);
+        } catch (InvocationTargetException e) {
+            throw new IOException("Falha ao abrir o arquivo zstd: " + e.getCause().getMessage(), e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Versão incompatível da biblioteca zstd-jni.", e);
+        }
+    }
+
+    /**
+     * Tamanho descompactado estimado pela taxa de compactação do início do arquivo (exato se o
+     * arquivo inteiro couber na amostra). O tamanho gravado no fim do gzip não serve: guarda só os
+     * 32 bits menos significativos e, com vários membros, apenas os do último.
+     */
+    public static long estimateUncompressedSize(File file, Format format) throws IOException {
+        if (format == Format.NONE) {
+            return file.length();
+        }
+        CountingInputStream compressed = new CountingInputStream(new FileInputStream(file));
+        try (InputStream in = decompress(compressed, format)) {
+            byte[] buffer = new byte[INFLATE_BUFFER];
+            long uncompressed = 0;
+            int read;
+            while (uncompressed < SIZE_SAMPLE_BYTES && (read = in.read(buffer)) > 0) {
+                uncompressed += read;
+            }
+            if (uncompressed < SIZE_SAMPLE_BYTES || compressed.count == 0) {
+                return uncompressed; // Arquivo inteiro descompactado
+            }
+            return Math.round((double) file.length() * uncompressed / compressed.count);
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.loader.csv;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resolve a lista de arquivos CSV de uma execução: um arquivo, um diretório (todos os *.csv, também
+ * compactados como *.csv.gz ou *.csv.zst), um padrão glob no nome do arquivo (ex.:
+ * {@code C:\\dados\\vendas_*.csv}) ou um manifesto com um caminho por linha. Os arquivos auxiliares
+ * gerados pelo loader (.bad, .ckpt, .metrics.json) são ignorados.
+ */
+public class CsvFileSet {
+
+    private CsvFileSet() {
+    }
+
+    public static List<String> resolve(String csvFilePath, String manifestPath) throws IOException {
+        List<String> files = manifestPath != null ? readManifest(manifestPath) : expand(csvFilePath);
+        if (files.isEmpty()) {
+            throw new FileNotFoundException("Nenhum arquivo CSV encontrado em: " + (manifestPath != null ? manifestPath : csvFilePath));
+        }
+        return files;
+    }
+
+    private static List<String> expand(String csvFilePath) throws IOException {
+        File file = new File(csvFilePath);
+        if (file.isDirectory()) {
+            return list(file.toPath(), "*.{csv,CSV,csv.gz,CSV.GZ,csv.zst,CSV.ZST}");
+        }
+        String name = file.getName();
+        if (isGlob(name)) {
+            Path directory = file.getParentFile() != null ? file.getParentFile().toPath() : Paths.get(".");
+            return list(directory, name);
+        }
+        return Collections.singletonList(csvFilePath);
+    }
+
+    private static boolean isGlob(String name) {
+        return name.indexOf('*') >= 0 || name.indexOf('?') >= 0 || name.indexOf('[') >= 0 || name.indexOf('{') >= 0;
+    }
+
+    // Arquivos do diretório que atendem ao padrão, em ordem alfabética
+    private static List<String> list(Path directory, String glob) throws IOException {
+        List<String> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            for (Path path : stream) {
+                if (Files.isRegularFile(path) && !isLoaderOutput(path.getFileName().toString())) {
+                    files.add(path.toString());
+                }
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    private static boolean isLoaderOutput(String name) {
+        return name.endsWith(".bad") || name.endsWith(".ckpt") || name.endsWith(".ckpt.tmp") || name.endsWith(".metrics.json");
+    }
+
+    // Um caminho por linha; linhas em branco e iniciadas por # são ignoradas. Caminhos relativos
+    // são resolvidos a partir do diretório do manifesto
+    private static List<String> readManifest(String manifestPath) throws IOException {
+        File manifest = new File(manifestPath);
+        List<String> files = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifest), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                File file = new File(line);
+                if (!file.isAbsolute() && manifest.getAbsoluteFile().getParentFile() != null) {
+                    file = new File(manifest.getAbsoluteFile().getParentFile(), line);
+                }
+                files.add(file.getPath());
+            }
+        }
+        return files;
+    }
+}
@@ -0,0 +1,13 @@
+package com.loader.csv;
+
+/**
+ * Reaproveitamento de Strings repetidas por coluna (parâmetro INTERN_STRINGS).
+ */
+public enum InternMode {
+    /** Só nas colunas com poucos valores distintos numa amostra do início do arquivo. */
+    AUTO,
+    /** Em todas as colunas; cada coluna desliga sozinha se os valores quase não se repetirem. */
+    ON,
+    /** Uma String nova para cada valor lido. */
+    OFF
+}
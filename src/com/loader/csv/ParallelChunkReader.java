@@ -0,0 +1,412 @@
+package com.loader.csv;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parse paralelo de um arquivo grande, dividido em trechos de {@link #CHUNK_SIZE} bytes processados
+ * por várias threads. Antes de tokenizar, cada trecho percorre o seu intervalo com a mesma máquina de
+ * estados do {@link CSVTokenizer} (dentro de um campo delimitado, logo após o fechamento, no início de
+ * um campo ou no meio dele), partindo de cada estado possível, e repassa ao trecho seguinte o estado
+ * em que termina a partir do estado em que ele próprio começa. Com o estado inicial, o trecho avança
+ * até a primeira quebra de linha fora de delimitadores e tokeniza os registros que começam dentro do
+ * seu intervalo. Assim, um registro com quebras de linha entre delimitadores nunca é partido entre
+ * dois trechos, e um delimitador no meio de um campo não delimitado (ex.: {@code 12" cano}) é literal
+ * aqui como na leitura sequencial.
+ *
+ * Um trecho só espera a varredura dos anteriores, que é bem mais barata que a tokenização; a
+ * tokenização de cada trecho não depende das demais.
+ *
+ * No máximo 'window' trechos ficam em processamento ou aguardando consumo, o que limita a memória.
+ * Os trechos são entregues na ordem do arquivo ou na ordem em que terminam ({@link ParseOrder}).
+ * Com mapeamento de colunas, só os campos mapeados são materializados e os registros com outra
+ * quantidade de campos são separados para o .bad ({@link #takeRejected()}).
+ * Não é thread-safe para o consumidor: {@link #nextRecord()} deve ser chamado por uma única thread.
+ */
+class ParallelChunkReader implements Closeable {
+    static final long CHUNK_SIZE = 4L * 1024 * 1024;
+    private static final int SCAN_BUFFER = 64 * 1024;
+
+    private final File file;
+    private final Charset charset;
+    private final String columnSeparator;
+    private final String enclosureCharacter;
+    private final boolean hasEnclosure;
+    private final byte enclosure;
+    private final long fileSize;
+    private final int chunkCount;
+    private final ParseOrder order;
+    private final int window;
+    private final ExecutorService executor;
+    private final CompletionService<Chunk> completion;
+    private final Deque<Future<Chunk>> pending = new ArrayDeque<>();
+    // Estados da varredura, como no CSVTokenizer; MID + n: no meio de um campo, com os n primeiros
+    // bytes do separador reconhecidos
+    private static final int IN = 0;
+    private static final int CLOSED = 1;
+    private static final int FIELD_START = 2;
+    private static final int MID = 3;
+    private final byte[] separator;
+    private final int[] separatorFallback; // Função de falha (KMP) do separador
+    private final boolean[] special; // Bytes que mudam o estado além de IN/MID
+    private final int stateCount;
+    // Estado da varredura no início de cada trecho
+    private final List<CompletableFuture<Integer>> startStates;
+
+    private int nextChunk;
+    private int inFlight;
+    private ColumnMapping columnMapping; // Nulo: registros completos
+    private boolean[] internFields; // Campos com cache de valores; nulo desliga
+    // Os caches de valores não são thread-safe: cada thread de parse tem os seus
+    private final ThreadLocal<StringInterner[]> interners = ThreadLocal.withInitial(() -> StringInterner.forFields(internFields));
+    private Iterator<String[]> current;
+    private List<String[]> rejected = new ArrayList<>();
+    private long recordsRead;
+    private long bytesRead;
+
+    ParallelChunkReader(File file, Charset charset, String columnSeparator, String enclosureCharacter, int threads, ParseOrder order) {
+        this.file = file;
+        this.charset = charset;
+        this.columnSeparator = columnSeparator;
+        this.enclosureCharacter = enclosureCharacter;
+        this.hasEnclosure = enclosureCharacter != null && !enclosureCharacter.isEmpty();
+        this.enclosure = hasEnclosure ? enclosureCharacter.getBytes(charset)[0] : 0;
+        this.separator = columnSeparator.getBytes(charset);
+        this.separatorFallback = new int[separator.length];
+        for (int i = 1, k = 0; i < separator.length; i++) {
+            while (k > 0 && separator[i] != separator[k]) {
+                k = separatorFallback[k - 1];
+            }
+            if (separator[i] == separator[k]) {
+                k++;
+            }
+            separatorFallback[i] = k;
+        }
+        this.special = new boolean[256];
+        special['\n'] = true;
+        special[enclosure & 0xFF] = hasEnclosure;
+        for (byte b : separator) {
+            special[b & 0xFF] = true;
+        }
+        this.stateCount = MID + separator.length;
+        this.fileSize = file.length();
+        this.chunkCount = (int) ((fileSize + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        this.order = order;
+        this.window = threads + 2;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "loader-parse-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.completion = new ExecutorCompletionService<>(executor);
+        this.startStates = new ArrayList<>(chunkCount + 1);
+        for (int i = 0; i <= chunkCount; i++) {
+            startStates.add(new CompletableFuture<>());
+        }
+        startStates.get(0).complete(FIELD_START);
+    }
+
+    /**
+     * Próximo registro não vazio, ou nulo no fim do arquivo.
+     */
+    String[] nextRecord() throws IOException {
+        while (true) {
+            if (current != null && current.hasNext()) {
+                return current.next();
+            }
+            current = null;
+            submitChunks();
+            if (inFlight == 0) {
+                return null;
+            }
+            Chunk chunk = takeChunk();
+            inFlight--;
+            recordsRead += chunk.records;
+            bytesRead += chunk.bytes;
+            rejected.addAll(chunk.rejected);
+            current = chunk.rows.iterator();
+        }
+    }
+
+    // Deve ser chamado antes do primeiro nextRecord; os trechos só são submetidos a partir dele
+    void setColumnMapping(ColumnMapping columnMapping) {
+        this.columnMapping = columnMapping;
+    }
+
+    // Mesma restrição de setColumnMapping: antes do primeiro nextRecord
+    void setInternFields(boolean[] internFields) {
+        this.internFields = internFields;
+    }
+
+    // Registros com quantidade de campos diferente da do cabeçalho, dos trechos já entregues
+    List<String[]> takeRejected() {
+        if (rejected.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String[]> taken = rejected;
+        rejected = new ArrayList<>();
+        return taken;
+    }
+
+    // Registros lidos dos trechos já entregues, incluindo linhas em branco
+    long getRecordsRead() {
+        return recordsRead;
+    }
+
+    // Bytes dos trechos já entregues (fora de ordem no modo UNORDERED, portanto só indica o progresso)
+    long getBytesRead() {
+        return bytesRead;
+    }
+
+    // Os trechos entram no pool em ordem: o trecho anterior, de quem cada um depende, já foi iniciado
+    private void submitChunks() {
+        while (nextChunk < chunkCount && inFlight < window) {
+            int index = nextChunk++;
+            if (order == ParseOrder.ORDERED) {
+                pending.add(executor.submit(() -> parseChunk(index)));
+            } else {
+                completion.submit(() -> parseChunk(index));
+            }
+            inFlight++;
+        }
+    }
+
+    private Chunk takeChunk() throws IOException {
+        try {
+            Future<Chunk> future = order == ParseOrder.ORDERED ? pending.poll() : completion.take();
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrompido aguardando o parse paralelo");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Falha no parse paralelo de " + file, cause);
+        }
+    }
+
+    private Chunk parseChunk(int index) throws IOException {
+        long rawStart = index * CHUNK_SIZE;
+        long rawEnd = Math.min(fileSize, rawStart + CHUNK_SIZE);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            int[] endStates = scanStates(channel, rawStart, rawEnd);
+            int state = startStates.get(index).get();
+            startStates.get(index + 1).complete(endStates[state]);
+            long start = index == 0 ? 0 : findRecordStart(channel, rawStart, state);
+            return tokenize(start, rawStart, rawEnd, index == 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw failChain(index, new InterruptedIOException("Parse paralelo interrompido"));
+        } catch (ExecutionException e) {
+            throw failChain(index, new IOException("Falha no trecho anterior do parse paralelo", e.getCause()));
+        } catch (IOException e) {
+            throw failChain(index, e);
+        } catch (RuntimeException e) {
+            throw failChain(index, e);
+        }
+    }
+
+    // Sem o estado deste trecho, os seguintes não têm como começar
+    private <T extends Exception> T failChain(int index, T error) {
+        startStates.get(index + 1).completeExceptionally(error);
+        return error;
+    }
+
+    // Estado ao fim de [from, to) para cada estado possível no início. Os percursos que chegam ao
+    // mesmo estado seguem juntos, de modo que na prática só dois (dentro e fora de um campo delimitado)
+    // são acompanhados por byte
+    private int[] scanStates(FileChannel channel, long from, long to) throws IOException {
+        int[] owner = new int[stateCount]; // Percurso de cada estado inicial
+        int[] paths = new int[stateCount]; // Estado atual de cada percurso
+        int pathCount = stateCount;
+        for (int i = 0; i < stateCount; i++) {
+            owner[i] = i;
+            paths[i] = i;
+        }
+        byte[] array = new byte[SCAN_BUFFER];
+        ByteBuffer buffer = ByteBuffer.wrap(array);
+        long position = from;
+        while (position < to) {
+            buffer.clear().limit((int) Math.min(array.length, to - position));
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = array[i];
+                if (!special[b & 0xFF]) {
+                    for (int p = 0; p < pathCount; p++) {
+                        if (paths[p] != IN) {
+                            paths[p] = MID;
+                        }
+                    }
+                    continue;
+                }
+                for (int p = 0; p < pathCount; p++) {
+                    paths[p] = nextState(paths[p], b);
+                }
+                pathCount = mergePaths(owner, paths, pathCount);
+            }
+            position += read;
+        }
+        int[] endStates = new int[stateCount];
+        for (int i = 0; i < stateCount; i++) {
+            endStates[i] = paths[owner[i]];
+        }
+        return endStates;
+    }
+
+    // Junta os percursos que chegaram ao mesmo estado
+    private static int mergePaths(int[] owner, int[] paths, int pathCount) {
+        for (int p = pathCount - 1; p > 0; p--) {
+            for (int q = 0; q < p; q++) {
+                if (paths[q] == paths[p]) {
+                    pathCount--;
+                    for (int i = 0; i < owner.length; i++) {
+                        if (owner[i] == p) {
+                            owner[i] = q;
+                        } else if (owner[i] == pathCount) {
+                            owner[i] = p;
+                        }
+                    }
+                    paths[p] = paths[pathCount];
+                    break;
+                }
+            }
+        }
+        return pathCount;
+    }
+
+    // Transição da máquina de estados do CSVTokenizer.scanRecord para o byte 'b'
+    private int nextState(int state, byte b) {
+        switch (state) {
+            case IN:
+                return hasEnclosure && b == enclosure ? CLOSED : IN;
+            case CLOSED:
+                if (hasEnclosure && b == enclosure) {
+                    return IN; // Delimitador duplicado
+                }
+                // Caracteres entre o fechamento e o separador são descartados
+                return b == '\n' ? FIELD_START : matchSeparator(0, b);
+            case FIELD_START:
+                if (hasEnclosure && b == enclosure) {
+                    return IN;
+                }
+                return b == '\n' ? FIELD_START : matchSeparator(0, b);
+            default:
+                return b == '\n' ? FIELD_START : matchSeparator(state - MID, b);
+        }
+    }
+
+    private int matchSeparator(int matched, byte b) {
+        while (matched > 0 && separator[matched] != b) {
+            matched = separatorFallback[matched - 1];
+        }
+        if (separator[matched] == b) {
+            matched++;
+        }
+        return matched == separator.length ? FIELD_START : MID + matched;
+    }
+
+    // Início do primeiro registro a partir de 'from': logo após uma quebra de linha fora de delimitadores
+    private long findRecordStart(FileChannel channel, long from, int state) throws IOException {
+        byte[] array = new byte[SCAN_BUFFER];
+        ByteBuffer buffer = ByteBuffer.wrap(array);
+        // O byte anterior ao intervalo pode ser a própria quebra de linha
+        buffer.limit(1);
+        if (channel.read(buffer, from - 1) == 1 && array[0] == '\n' && state != IN) {
+            return from;
+        }
+        long position = from;
+        while (position < fileSize) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = array[i];
+                if (b == '\n' && state != IN) {
+                    return position + i + 1;
+                }
+                state = nextState(state, b);
+            }
+            position += read;
+        }
+        return fileSize;
+    }
+
+    // Tokeniza os registros que começam em [start, end); 'start' deve ser o início de um registro
+    private Chunk tokenize(long start, long rawStart, long end, boolean skipHeader) throws IOException {
+        Chunk chunk = new Chunk();
+        chunk.bytes = end - rawStart;
+        if (start >= end) {
+            return chunk; // Um registro do trecho anterior cobre todo o intervalo
+        }
+        StringInterner[] fieldInterners = interners.get();
+        try (CSVTokenizer tokenizer = new CSVTokenizer(file, charset, columnSeparator, enclosureCharacter, start, false)) {
+            if (skipHeader) {
+                tokenizer.nextRecord();
+            }
+            // Registros que começam depois do intervalo pertencem ao trecho seguinte
+            while (tokenizer.nextRecord() && tokenizer.getRecordOffset() < end) {
+                chunk.records++;
+                int fieldCount = tokenizer.getFieldCount();
+                if (fieldCount == 0) {
+                    continue; // Linha em branco
+                }
+                if (columnMapping != null && fieldCount == columnMapping.getFieldCount()) {
+                    int[] fieldIndexes = columnMapping.getFieldIndexes();
+                    String[] values = new String[fieldIndexes.length];
+                    for (int i = 0; i < fieldIndexes.length; i++) {
+                        values[i] = tokenizer.getString(fieldIndexes[i], StringInterner.forField(fieldInterners, fieldIndexes[i]));
+                    }
+                    chunk.rows.add(values);
+                    continue;
+                }
+                String[] values = new String[fieldCount];
+                for (int i = 0; i < fieldCount; i++) {
+                    values[i] = tokenizer.getString(i, StringInterner.forField(fieldInterners, i));
+                }
+                (columnMapping == null ? chunk.rows : chunk.rejected).add(values);
+            }
+        }
+        return chunk;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static class Chunk {
+        final List<String[]> rows = new ArrayList<>();
+        final List<String[]> rejected = new ArrayList<>();
+        long records;
+        long bytes;
+    }
+}
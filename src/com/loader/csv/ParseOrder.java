@@ -0,0 +1,11 @@
+package com.loader.csv;
+
+/**
+ * Ordem de entrega dos registros no parse paralelo.
+ */
+public enum ParseOrder {
+    /** Os registros são entregues na ordem do arquivo; um trecho lento segura os seguintes. */
+    ORDERED,
+    /** Cada trecho é entregue assim que termina o parse, sem esperar os anteriores. */
+    UNORDERED
+}
@@ -0,0 +1,123 @@
+package com.loader.csv;
+
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache limitado de valores de uma coluna: a mesma sequência de bytes devolve sempre a mesma
+ * instância de String, sem decodificar nem alocar de novo. Em colunas com poucos valores distintos
+ * (status, UF, filial) os lotes em memória passam a compartilhar algumas dezenas de Strings.
+ *
+ * Guarda no máximo {@link #MAX_ENTRIES} valores de até {@link #MAX_LENGTH} bytes; valores novos
+ * depois disso são alocados normalmente. Se, depois de {@link #CHECK_INTERVAL} consultas, menos da
+ * metade tiver sido encontrada, o cache se desliga. Não é thread-safe: cada thread de parse usa o seu.
+ */
+final class StringInterner {
+    static final int MAX_ENTRIES = 1024;
+    static final int MAX_LENGTH = 64;
+    private static final int CHECK_INTERVAL = 16 * 1024;
+    private static final int CAPACITY = MAX_ENTRIES * 2; // Potência de 2, no máximo metade ocupada
+
+    private final byte[][] keys = new byte[CAPACITY][];
+    private final int[] hashes = new int[CAPACITY];
+    private final String[] values = new String[CAPACITY];
+    private Map<String, String> stringValues; // Leitura por caracteres, que já recebe Strings
+    private int size;
+    private int lookups;
+    private int hits;
+    private boolean disabled;
+
+    // Um cache para cada campo marcado (nulo nos demais); nulo se 'fields' for nulo
+    static StringInterner[] forFields(boolean[] fields) {
+        if (fields == null) {
+            return null;
+        }
+        StringInterner[] interners = new StringInterner[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            interners[i] = fields[i] ? new StringInterner() : null;
+        }
+        return interners;
+    }
+
+    // Cache do campo, ou nulo se o campo não tiver um
+    static StringInterner forField(StringInterner[] interners, int field) {
+        return interners != null && field < interners.length ? interners[field] : null;
+    }
+
+    /**
+     * Valor dos bytes [offset, offset + length) no charset informado, do cache quando possível.
+     */
+    String intern(byte[] bytes, int offset, int length, Charset charset) {
+        if (disabled || length > MAX_LENGTH) {
+            return new String(bytes, offset, length, charset);
+        }
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        int mask = CAPACITY - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && sameBytes(keys[slot], bytes, offset, length)) {
+                countLookup(true);
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        String value = new String(bytes, offset, length, charset);
+        if (size < MAX_ENTRIES) {
+            byte[] key = new byte[length];
+            System.arraycopy(bytes, offset, key, 0, length);
+            keys[slot] = key;
+            hashes[slot] = hash;
+            values[slot] = value;
+            size++;
+        }
+        countLookup(false);
+        return value;
+    }
+
+    /**
+     * Instância canônica do valor já decodificado; o valor recebido é descartado quando repetido.
+     */
+    String intern(String value) {
+        if (disabled || value.length() > MAX_LENGTH) {
+            return value;
+        }
+        if (stringValues == null) {
+            stringValues = new HashMap<>();
+        }
+        String canonical = stringValues.get(value);
+        if (canonical == null && stringValues.size() < MAX_ENTRIES) {
+            stringValues.put(value, value);
+        }
+        countLookup(canonical != null);
+        return canonical != null ? canonical : value;
+    }
+
+    private void countLookup(boolean hit) {
+        lookups++;
+        if (hit) {
+            hits++;
+        }
+        if (lookups == CHECK_INTERVAL) {
+            // Valores que pouco se repetem: o cache só acrescentaria custo
+            disabled = hits * 2 < lookups;
+            lookups = 0;
+            hits = 0;
+        }
+    }
+
+    private static boolean sameBytes(byte[] key, byte[] bytes, int offset, int length) {
+        if (key.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key[i] != bytes[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
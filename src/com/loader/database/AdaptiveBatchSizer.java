@@ -0,0 +1,99 @@
+package com.loader.database;
+
+import com.loader.util.Log;
+
+/**
+ * Ajusta o tamanho do lote durante a carga pela vazão medida no executeBatch (subida de encosta):
+ * a cada janela de lotes compara linhas/s com a janela anterior e continua na mesma direção enquanto
+ * a vazão melhora, invertendo e reduzindo o passo quando piora. O tamanho fica sempre entre os
+ * limites configurados.
+ *
+ * Thread-safe: a carga paralela registra os lotes de vários workers no mesmo ajustador.
+ */
+public class AdaptiveBatchSizer {
+    private static final int WINDOW_BATCHES = 3;
+    // Variação de vazão abaixo desta fração é tratada como ruído
+    private static final double TOLERANCE = 0.03;
+    private static final double INITIAL_STEP = 2.0;
+    private static final double MIN_STEP = 1.1;
+
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private int batchSize;
+    private double step = INITIAL_STEP;
+    private boolean growing = true;
+
+    private int windowBatches;
+    private long windowRows;
+    private long windowNanos;
+    private double lastThroughput;
+
+    private int bestBatchSize;
+    private double bestThroughput;
+
+    public AdaptiveBatchSizer(int initialBatchSize, int minBatchSize, int maxBatchSize) {
+        this.minBatchSize = Math.max(1, minBatchSize);
+        this.maxBatchSize = Math.max(this.minBatchSize, maxBatchSize);
+        this.batchSize = clamp(initialBatchSize);
+        this.bestBatchSize = batchSize;
+    }
+
+    public synchronized int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Registra um lote executado: quantidade de linhas e tempo de ida e volta do executeBatch.
+     */
+    public synchronized void record(int rows, long elapsedNanos) {
+        if (rows <= 0) {
+            return;
+        }
+        windowBatches++;
+        windowRows += rows;
+        windowNanos += elapsedNanos;
+        if (windowBatches < WINDOW_BATCHES) {
+            return;
+        }
+
+        double throughput = windowNanos > 0 ? windowRows * 1e9 / windowNanos : 0;
+        if (throughput > bestThroughput) {
+            bestThroughput = throughput;
+            bestBatchSize = batchSize;
+        }
+        if (lastThroughput > 0 && throughput < lastThroughput * (1 - TOLERANCE)) {
+            // Piorou: volta na direção oposta com passo menor
+            growing = !growing;
+            step = Math.max(MIN_STEP, Math.sqrt(step));
+        } else if (lastThroughput > 0 && throughput < lastThroughput * (1 + TOLERANCE)) {
+            // Estável: reduz o passo para refinar em torno do tamanho atual
+            step = Math.max(MIN_STEP, Math.sqrt(step));
+        }
+        lastThroughput = throughput;
+        windowBatches = 0;
+        windowRows = 0;
+        windowNanos = 0;
+
+        int next = clamp((int) Math.round(growing ? batchSize * step : batchSize / step));
+        if (next == batchSize && (next == minBatchSize || next == maxBatchSize)) {
+            growing = !growing; // Encostou no limite
+        }
+        if (next != batchSize) {
+            Log.info(String.format("Tamanho do lote ajustado: %d -> %d (%.0f linhas/s)", batchSize, next, throughput));
+            batchSize = next;
+        }
+    }
+
+    private int clamp(int value) {
+        return Math.max(minBatchSize, Math.min(maxBatchSize, value));
+    }
+
+    public synchronized void printSummary() {
+        Log.info(String.format("Melhor tamanho de lote observado: %d (%.0f linhas/s). Para fixá-lo, use BATCH_SIZE=%d sem ADAPTIVE_BATCH.",
+                bestBatchSize, bestThroughput, bestBatchSize));
+    }
+}
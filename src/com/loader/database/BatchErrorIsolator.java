@@ -0,0 +1,132 @@
+package com.loader.database;
+
+import com.loader.csv.CSVParser;
+import com.loader.csv.ColumnarBatch;
+import java.io.IOException;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executa lotes isolando as linhas rejeitadas pelo banco: cada lote roda sob um savepoint e, se
+ * falhar, é desfeito até o savepoint e reexecutado em partes. Quando o driver informa até onde o
+ * lote foi executado (contagens do BatchUpdateException), a divisão é feita na primeira linha com
+ * falha; caso contrário o lote é dividido ao meio. Uma linha só é rejeitada depois de falhar
+ * sozinha, e vai para o arquivo .bad com o código e a mensagem do erro.
+ *
+ * Linhas com valor que não pôde ser convertido ({@link #rejectFailedRows}) também vão para o .bad
+ * e entram na mesma contagem, mesmo com MAX_ERRORS=0, quando o primeiro rejeitado já interrompe a carga.
+ *
+ * A carga é interrompida quando o total de rejeitados passa de MAX_ERRORS. Thread-safe: os workers
+ * paralelos compartilham o mesmo contador.
+ */
+public class BatchErrorIsolator {
+    private final RowBinder rowBinder;
+    private final CSVParser parser;
+    private final long maxErrors;
+    private final LoadMetrics metrics;
+    private final AtomicLong rejectedRows = new AtomicLong();
+
+    public BatchErrorIsolator(RowBinder rowBinder, CSVParser parser, long maxErrors, LoadMetrics metrics) {
+        this.rowBinder = rowBinder;
+        this.parser = parser;
+        this.maxErrors = maxErrors;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Executa o lote, já convertido, e retorna a quantidade de linhas gravadas.
+     */
+    public int execute(PreparedStatement pstmt, ColumnarBatch batch) throws SQLException {
+        return execute(pstmt, batch, 0, batch.size());
+    }
+
+    private int execute(PreparedStatement pstmt, ColumnarBatch batch, int from, int to) throws SQLException {
+        Connection conn = pstmt.getConnection();
+        Savepoint savepoint = conn.setSavepoint();
+        try {
+            for (int i = from; i < to; i++) {
+                rowBinder.bindRow(pstmt, batch, i);
+                pstmt.addBatch();
+            }
+            return DataLoader.countWritten(pstmt.executeBatch());
+        } catch (SQLException e) {
+            conn.rollback(savepoint);
+            pstmt.clearBatch();
+            if (to - from == 1) {
+                reject(batch.getRow(from), e);
+                return 0;
+            }
+
+            int failed = firstFailedIndex(e, to - from);
+            if (failed >= 0) {
+                // Linhas antes da falha, a linha suspeita sozinha e o restante
+                int split = from + failed;
+                int rows = split > from ? execute(pstmt, batch, from, split) : 0;
+                rows += execute(pstmt, batch, split, split + 1);
+                return rows + (split + 1 < to ? execute(pstmt, batch, split + 1, to) : 0);
+            }
+            int middle = (from + to) >>> 1;
+            return execute(pstmt, batch, from, middle) + execute(pstmt, batch, middle, to);
+        }
+    }
+
+    /**
+     * Rejeita as linhas do lote que falharam na conversão e as retira do lote.
+     */
+    public void rejectFailedRows(ColumnarBatch batch) throws SQLException {
+        for (int row = 0; row < batch.size(); row++) {
+            if (batch.isFailed(row)) {
+                reject(batch.getRow(row), 0, batch.getFailure(row), null);
+            }
+        }
+        batch.removeFailedRows();
+    }
+
+    // Posição da primeira linha com falha segundo as contagens do driver, ou -1 se não for possível saber
+    private static int firstFailedIndex(SQLException e, int batchRows) {
+        if (!(e instanceof BatchUpdateException)) {
+            return -1;
+        }
+        int[] counts = ((BatchUpdateException) e).getUpdateCounts();
+        if (counts == null) {
+            return -1;
+        }
+        if (counts.length < batchRows) {
+            return counts.length; // Driver que para no primeiro erro (ex.: Oracle)
+        }
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == Statement.EXECUTE_FAILED) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void reject(String[] row, SQLException e) throws SQLException {
+        reject(row, e.getErrorCode(), e.getMessage(), e);
+    }
+
+    // 'cause' é nulo nas falhas de conversão, que não passam pelo banco
+    private void reject(String[] row, int errorCode, String message, SQLException cause) throws SQLException {
+        try {
+            parser.writeBadRecord(row, errorCode, message);
+        } catch (IOException io) {
+            throw new SQLException("Falha ao gravar registro rejeitado no arquivo .bad", io);
+        }
+        long rejected = rejectedRows.incrementAndGet();
+        metrics.recordRejected(1);
+        if (rejected > maxErrors) {
+            throw new SQLException("Limite de registros rejeitados excedido (MAX_ERRORS=" + maxErrors + "). Último erro: "
+                    + message, cause != null ? cause.getSQLState() : null, errorCode, cause);
+        }
+    }
+
+    public long getRejectedRows() {
+        return rejectedRows.get();
+    }
+}
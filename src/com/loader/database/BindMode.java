@@ -0,0 +1,11 @@
+package com.loader.database;
+
+/**
+ * Forma de vincular os valores ao INSERT.
+ */
+public enum BindMode {
+    /** Todos os valores são formatados conforme o NLS da sessão e vinculados com setString. */
+    STRING,
+    /** Os valores são convertidos para o tipo JDBC da coluna (setLong/setBigDecimal/setTimestamp/setNull). */
+    TYPED
+}
@@ -0,0 +1,11 @@
+package com.loader.database;
+
+/**
+ * Política de commit da carga paralela.
+ */
+public enum CommitMode {
+    /** Cada worker confirma a própria transação ao terminar; a falha de um worker desfaz apenas o trabalho dele. */
+    PER_WORKER,
+    /** Os workers mantêm as transações abertas e o coordenador só confirma todas se nenhum worker falhar. */
+    ALL_OR_NOTHING
+}
@@ -1,75 +1,291 @@
-package com.loader.database;
-
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-
-import javax.swing.JOptionPane;
-
-public class ConnectionManager {
-
-    private final String dbUrl;
-    private final String dbUser;
-    private final String dbPassword;
-
-    public ConnectionManager(String dbUrl, String dbUser, String dbPassword) {
-        this.dbUrl = dbUrl;
-        this.dbUser = dbUser;
-        this.dbPassword = dbPassword;
-    }
-
-    public Connection openConnection() throws SQLException {
-        try {
-            Class.forName("oracle.jdbc.driver.OracleDriver");
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("Oracle JDBC Driver not found.", e);
-        }
-        Connection conn = DriverManager.getConnection(dbUrl, dbUser, dbPassword);
-        conn.setAutoCommit(false); // Definir autoCommit como false explicitamente
-        return conn;
-    }
-
-    
-    public boolean isPasswordExpiring(String username, String dbInstance) {
-        String sql = "SELECT username, TO_CHAR(TRUNC(expiry_date), 'DD/MM/YYYY') AS DATA_EXPIRACAO FROM user_users WHERE UPPER(username) = UPPER(?)";
-
-        try (Connection conn = this.openConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, username);
-            conn.setAutoCommit(false);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    String expiracao = rs.getString("DATA_EXPIRACAO");
-                    SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
-                    Date expiryDate = sdf.parse(expiracao);
-                    Date currentDate = new Date();
-
-                    // Calcular a diferena em dias
-                    long diffInMillies = Math.abs(expiryDate.getTime() - currentDate.getTime());
-                    long diff = diffInMillies / (24 * 60 * 60 * 1000);
-                    System.out.println("Tempo para expirar a senha: "+diff);
-                    if (diff <= 7) {
-                        // Mostrar aviso se faltarem 7 dias ou menos
-                        JOptionPane.showMessageDialog(null, 
-                            "Aviso: A senha para o usurio " + username + " na instncia " + dbInstance + 
-                            " est prestes a expirar em " + diff + " dias. Por favor, atualize sua senha em breve para evitar interrupes.",
-                            "Aviso de Expirao de Senha",
-                            JOptionPane.WARNING_MESSAGE);
-                        System.out.println("A senha para o usurio " + username + " na instncia "+ dbInstance +" expira em: " + expiracao);
-                        return true;
-                    }
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return false;
-    }
-
-    // Implement other connection management methods as needed, such as closeConnection()
-}
+package com.loader.database;
+
+import com.loader.util.Log;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.JOptionPane;
+
+/**
+ * Fornece as conexões da execução a partir de um pool simples: ao ser fechada, a conexão é desfeita
+ * (rollback), os statements abertos por ela são fechados e a sessão volta ao pool em vez de ser
+ * encerrada. Metadados, parâmetros NLS, amostragem e carga reaproveitam assim as mesmas sessões,
+ * evitando um logon a cada etapa.
+ *
+ * O tamanho do pool limita as sessões ociosas mantidas abertas, não as conexões em uso: pedidos
+ * acima do limite (ex.: LOAD_THREADS maior que o pool) abrem novas sessões, encerradas na devolução.
+ * Uma sessão ociosa há mais de {@link #VALIDATE_AFTER_IDLE_MILLIS} ms é validada antes de reutilizada.
+ */
+public class ConnectionManager implements AutoCloseable {
+
+    public static final String ORACLE_DRIVER = "oracle.jdbc.driver.OracleDriver";
+    public static final int DEFAULT_POOL_SIZE = 4;
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 50;
+
+    private static final long VALIDATE_AFTER_IDLE_MILLIS = 30_000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+    // Cache implícito de statements do driver Oracle, configurado por propriedade da conexão
+    private static final String ORACLE_STATEMENT_CACHE_PROPERTY = "oracle.jdbc.implicitStatementCacheSize";
+
+    private final String dbUrl;
+    private final String dbUser;
+    private final String dbPassword;
+    private final String driverClassName;
+    private int poolSize = DEFAULT_POOL_SIZE;
+    private int statementCacheSize = DEFAULT_STATEMENT_CACHE_SIZE;
+    private volatile boolean driverLoaded;
+
+    // Sessões ociosas; a mais recente fica no início
+    private final Deque<IdleSession> idle = new ArrayDeque<>();
+    private boolean closed;
+    private final AtomicInteger sessionsOpened = new AtomicInteger();
+    private final AtomicInteger sessionsReused = new AtomicInteger();
+
+    public ConnectionManager(String dbUrl, String dbUser, String dbPassword) {
+        this(dbUrl, dbUser, dbPassword, ORACLE_DRIVER);
+    }
+
+    // driverClassName permite apontar para outro driver JDBC (ex.: banco embarcado em testes)
+    public ConnectionManager(String dbUrl, String dbUser, String dbPassword, String driverClassName) {
+        this.dbUrl = dbUrl;
+        this.dbUser = dbUser;
+        this.dbPassword = dbPassword;
+        this.driverClassName = driverClassName;
+    }
+
+    // Sessões ociosas mantidas para reutilização (0 encerra cada conexão ao ser fechada)
+    public void setPoolSize(int poolSize) {
+        this.poolSize = Math.max(0, poolSize);
+    }
+
+    // Statements preparados mantidos em cache por sessão (0 desliga); aplicado às novas sessões Oracle
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+    }
+
+    /**
+     * Conexão com autoCommit desligado. O close() devolve a sessão ao pool.
+     */
+    public Connection openConnection() throws SQLException {
+        Connection physical = borrow();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, new Lease(physical));
+    }
+
+    private Connection borrow() throws SQLException {
+        while (true) {
+            IdleSession session;
+            synchronized (idle) {
+                session = idle.pollFirst();
+            }
+            if (session == null) {
+                break;
+            }
+            if (System.currentTimeMillis() - session.idleSince < VALIDATE_AFTER_IDLE_MILLIS || isValid(session.conn)) {
+                sessionsReused.incrementAndGet();
+                return session.conn;
+            }
+            Log.debug("Sessão ociosa inválida descartada do pool.");
+            closeQuietly(session.conn);
+        }
+        Connection conn = connect();
+        sessionsOpened.incrementAndGet();
+        return conn;
+    }
+
+    private Connection connect() throws SQLException {
+        loadDriver();
+        Properties properties = new Properties();
+        if (dbUser != null) {
+            properties.setProperty("user", dbUser);
+        }
+        if (dbPassword != null) {
+            properties.setProperty("password", dbPassword);
+        }
+        if (statementCacheSize > 0 && dbUrl.startsWith("jdbc:oracle:")) {
+            properties.setProperty(ORACLE_STATEMENT_CACHE_PROPERTY, String.valueOf(statementCacheSize));
+        }
+        Connection conn = DriverManager.getConnection(dbUrl, properties);
+        conn.setAutoCommit(false); // Definir autoCommit como false explicitamente
+        return conn;
+    }
+
+    private void loadDriver() throws SQLException {
+        if (driverLoaded || driverClassName == null || driverClassName.isEmpty()) {
+            return;
+        }
+        try {
+            Class.forName(driverClassName);
+            driverLoaded = true;
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("JDBC Driver not found: " + driverClassName, e);
+        }
+    }
+
+    private static boolean isValid(Connection conn) {
+        try {
+            return conn.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Devolução: fecha os statements da conexão, descarta o que não foi confirmado e guarda a sessão
+    private void release(Connection physical, List<Statement> statements) {
+        try {
+            for (Statement statement : statements) {
+                statement.close(); // Com o cache implícito, o statement volta ao cache da sessão
+            }
+            physical.rollback();
+            if (physical.getAutoCommit()) {
+                physical.setAutoCommit(false);
+            }
+            physical.clearWarnings();
+        } catch (SQLException e) {
+            Log.debug("Sessão descartada na devolução ao pool: " + e.getMessage());
+            closeQuietly(physical);
+            return;
+        }
+        synchronized (idle) {
+            if (!closed && idle.size() < poolSize) {
+                idle.addFirst(new IdleSession(physical));
+                return;
+            }
+        }
+        closeQuietly(physical);
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            Log.debug("Falha ao encerrar a sessão: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Encerra as sessões ociosas; as conexões ainda em uso são encerradas ao serem devolvidas.
+     */
+    @Override
+    public void close() {
+        List<IdleSession> sessions;
+        synchronized (idle) {
+            closed = true;
+            sessions = new ArrayList<>(idle);
+            idle.clear();
+        }
+        for (IdleSession session : sessions) {
+            closeQuietly(session.conn);
+        }
+        Log.debug("Pool de conexões: " + sessionsOpened.get() + " sessões abertas, " + sessionsReused.get() + " reutilizações.");
+    }
+
+    private static class IdleSession {
+        final Connection conn;
+        final long idleSince = System.currentTimeMillis();
+
+        IdleSession(Connection conn) {
+            this.conn = conn;
+        }
+    }
+
+    // Conexão entregue a quem chamou openConnection(); repassa as chamadas à sessão física
+    private class Lease implements InvocationHandler {
+        private final Connection physical;
+        private final List<Statement> statements = new ArrayList<>();
+        private boolean returned;
+
+        Lease(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(physical, statements);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + physical;
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Conexão já devolvida ao pool.");
+            }
+            try {
+                Object result = method.invoke(physical, args);
+                if (result instanceof Statement) {
+                    statements.add((Statement) result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    
+    public boolean isPasswordExpiring(String username, String dbInstance) {
+        String sql = "SELECT username, TO_CHAR(TRUNC(expiry_date), 'DD/MM/YYYY') AS DATA_EXPIRACAO FROM user_users WHERE UPPER(username) = UPPER(?)";
+
+        try (Connection conn = this.openConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, username);
+            conn.setAutoCommit(false);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    String expiracao = rs.getString("DATA_EXPIRACAO");
+                    SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
+                    Date expiryDate = sdf.parse(expiracao);
+                    Date currentDate = new Date();
+
+                    // Calcular a diferença em dias
+                    long diffInMillies = Math.abs(expiryDate.getTime() - currentDate.getTime());
+                    long diff = diffInMillies / (24 * 60 * 60 * 1000);
+                    Log.debug("Tempo para expirar a senha: "+diff);
+                    if (diff <= 7) {
+                        // Mostrar aviso se faltarem 7 dias ou menos
+                        JOptionPane.showMessageDialog(null, 
+                            "Aviso: A senha para o usuário " + username + " na instância " + dbInstance + 
+                            " está prestes a expirar em " + diff + " dias. Por favor, atualize sua senha em breve para evitar interrupções.",
+                            "Aviso de Expiração de Senha",
+                            JOptionPane.WARNING_MESSAGE);
+                        Log.info("A senha para o usuário " + username + " na instância "+ dbInstance +" expira em: " + expiracao);
+                        return true;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            Log.error("Falha ao verificar a expiração da senha", e);
+        }
+        return false;
+    }
+
+    // Implement other connection management methods as needed, such as closeConnection()
+}
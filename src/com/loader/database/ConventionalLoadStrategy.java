@@ -0,0 +1,55 @@
+package com.loader.database;
+
+import java.sql.Connection;
+import java.util.StringJoiner;
+
+/**
+ * INSERT ... VALUES (?, ...) convencional.
+ */
+public class ConventionalLoadStrategy implements LoadStrategy {
+
+    @Override
+    public String buildStatementSql(TableMetadata tableMetadata) {
+        return buildInsertSql(tableMetadata, "");
+    }
+
+    // Monta o INSERT com todas as colunas da tabela; 'hint' é inserido logo após a palavra INSERT
+    static String buildInsertSql(TableMetadata tableMetadata, String hint) {
+        StringBuilder sql = new StringBuilder("INSERT ");
+        sql.append(hint).append("INTO ");
+        sql.append(tableMetadata.getQualifiedName()).append(" (");
+
+        // Adding column names
+        StringJoiner columnNames = new StringJoiner(", ");
+        for (TableMetadata.ColumnMetadata column : tableMetadata.getColumns()) {
+            columnNames.add(column.getName());
+        }
+        sql.append(columnNames.toString()).append(") VALUES (");
+
+        // Adding placeholders
+        StringJoiner placeholders = new StringJoiner(", ");
+        for (int i = 0; i < tableMetadata.getColumns().size(); i++) {
+            placeholders.add("?");
+        }
+        sql.append(placeholders.toString()).append(")");
+        return sql.toString();
+    }
+
+    @Override
+    public void beforeLoad(Connection conn, TableMetadata tableMetadata) {
+    }
+
+    @Override
+    public void afterLoad(Connection conn, TableMetadata tableMetadata) {
+    }
+
+    @Override
+    public boolean commitsEachBatch() {
+        return false;
+    }
+
+    @Override
+    public boolean locksTable() {
+        return false;
+    }
+}
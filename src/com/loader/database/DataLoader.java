@@ -1,112 +1,440 @@
-package com.loader.database;
-
-import com.loader.csv.CSVParser;
-import com.loader.util.DataFormatter;
-import java.io.IOException;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.List;
-import java.util.StringJoiner;
-
-public class DataLoader {
-    private final int batchSize; // Adicione um membro para armazenar batchSize
-    private final ConnectionManager connectionManager;
-    private final TableMetadata tableMetadata;
-    private final DataFormatter dataFormatter;
-
-    public DataLoader(ConnectionManager connectionManager, TableMetadata tableMetadata, DataFormatter dataFormatter, int batchSize) {
-        this.connectionManager = connectionManager;
-        this.tableMetadata = tableMetadata;
-        this.dataFormatter = dataFormatter;
-        this.batchSize = batchSize;
-    }
-
-    private String generateInsertSql() {
-        StringBuilder sql = new StringBuilder("INSERT INTO ");
-        // Incluindo o esquema na string SQL, se disponvel
-        if (tableMetadata.getSchema() != null && !tableMetadata.getSchema().isEmpty()) {
-            sql.append(tableMetadata.getSchema()).append(".");
-        }
-        sql.append(tableMetadata.getTableName()).append(" (");
-
-        // Adding column names
-        StringJoiner columnNames = new StringJoiner(", ");
-        for (TableMetadata.ColumnMetadata column : tableMetadata.getColumns()) {
-            columnNames.add(column.getName());
-        }
-        sql.append(columnNames.toString()).append(") VALUES (");
-
-        // Adding placeholders
-        StringJoiner placeholders = new StringJoiner(", ");
-        for (int i = 0; i < tableMetadata.getColumns().size(); i++) {
-            placeholders.add("?");
-        }
-        sql.append(placeholders.toString()).append(")");
-        return sql.toString();
-    }
-
-    public void loadData(CSVParser parser) throws IOException, SQLException {
-        String insertSql = generateInsertSql();
-        int totalRows = parser.getTotalRows() - 1;
-        int processedRows = 0;
-
-        Connection conn = null;
-        try {
-            conn = connectionManager.openConnection();
-            PreparedStatement pstmt = conn.prepareStatement(insertSql);
-            Statement countStatement = conn.createStatement();
-            
-            int initialCount = countTableRows(countStatement);
-            System.out.println("Registros iniciais na tabela: " + initialCount);
-
-            while (processedRows < totalRows) {
-                List<String[]> batchData = parser.parseNextBatch(batchSize);
-                for (String[] rowData : batchData) {
-                    for (int i = 0; i < rowData.length; i++) {
-                        String formattedData = dataFormatter.formatData(rowData[i], tableMetadata.getColumns().get(i).getType());
-                        pstmt.setString(i + 1, formattedData);
-                    }
-                    pstmt.addBatch();
-                }
-                pstmt.executeBatch();
-                processedRows += batchData.size();
-            }
-            conn.commit(); // Commit s acontece se todas as linhas forem processadas sem erro
-            System.out.println("Total de " + processedRows + " linhas inseridas com sucesso.");
-            
-            int finalCount = countTableRows(countStatement);
-            System.out.println("Quantidade final de registros na tabela: " + finalCount);
-            
-        } catch (SQLException e) {
-            if (conn != null) {
-                conn.rollback(); // Rollback em qualquer exceo
-            }
-            System.err.println("Erro de SQL: " + e.getMessage());
-            System.err.println("Cdigo SQLState: " + e.getSQLState());
-            System.err.println("Cdigo de erro do banco de dados: " + e.getErrorCode());
-        } finally {
-            if (conn != null) {
-                conn.close(); // Fecha a conexo no bloco finally
-            }
-            parser.closeResources(); // Fecha os recursos do parser
-        }
-    }
-
-    
-    private int countTableRows(Statement statement) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM ";
-        if (tableMetadata.getSchema() != null && !tableMetadata.getSchema().isEmpty()) {
-            sql += tableMetadata.getSchema() + ".";
-        }
-        sql += tableMetadata.getTableName();
-        try (ResultSet rs = statement.executeQuery(sql)) {
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-            return 0;
-        }
-    }
-}
+package com.loader.database;
+
+import com.loader.csv.CSVParser;
+import com.loader.csv.ColumnarBatch;
+import com.loader.util.DataFormatter;
+import com.loader.util.Log;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+public class DataLoader {
+    private static final long PROGRESS_STEP_PERCENT = 10;
+
+    private final int batchSize; // Adicione um membro para armazenar batchSize
+    private final ConnectionManager connectionManager;
+    private final TableMetadata tableMetadata;
+    private final DataFormatter dataFormatter;
+    private RowBinder rowBinder; // Conversores por coluna, compilados na criação do loader
+    private int loadThreads = 1;
+    private CommitMode commitMode = CommitMode.ALL_OR_NOTHING;
+    private int pipelineDepth = 0;
+    private LoadStrategy loadStrategy = new ConventionalLoadStrategy();
+    private AdaptiveBatchSizer batchSizer; // Nulo quando o tamanho do lote é fixo
+    private int commitInterval = 0; // Lotes entre commits intermediários (0: commit só no fim)
+    private boolean restartable;
+    private long maxErrors = 0; // Registros rejeitados tolerados; 0 mantém a falha do lote inteiro
+    private BatchErrorIsolator errorIsolator; // Criado por carga; isola linhas no banco só quando maxErrors > 0
+    private LoadMetrics metrics; // Criado por carga
+    private int metricsInterval = 30; // Segundos entre relatórios de métricas no log (0 desliga)
+    private String metricsFile; // Resumo JSON; nulo usa <csv>.metrics.json
+    private RowCountVerification rowCountVerification = RowCountVerification.NONE;
+    private String markerColumn;
+    private String markerValue;
+
+    public DataLoader(ConnectionManager connectionManager, TableMetadata tableMetadata, DataFormatter dataFormatter, int batchSize) {
+        this.connectionManager = connectionManager;
+        this.tableMetadata = tableMetadata;
+        this.dataFormatter = dataFormatter;
+        this.batchSize = batchSize;
+        this.rowBinder = new RowBinder(tableMetadata.getColumns(), dataFormatter, BindMode.STRING);
+    }
+
+    public void setLoadThreads(int loadThreads) {
+        this.loadThreads = Math.max(1, loadThreads);
+    }
+
+    public void setCommitMode(CommitMode commitMode) {
+        this.commitMode = commitMode;
+    }
+
+    // Número de lotes preparados que podem aguardar a execução no modo em pipeline (0 desliga o modo)
+    public void setPipelineDepth(int pipelineDepth) {
+        this.pipelineDepth = Math.max(0, pipelineDepth);
+    }
+
+    public void setBindMode(BindMode bindMode) {
+        this.rowBinder = new RowBinder(tableMetadata.getColumns(), dataFormatter, bindMode);
+    }
+
+    // Ajusta o tamanho do lote pela vazão medida, partindo de batchSize e respeitando os limites
+    public void setAdaptiveBatchSize(int minBatchSize, int maxBatchSize) {
+        this.batchSizer = new AdaptiveBatchSizer(batchSize, minBatchSize, maxBatchSize);
+    }
+
+    public void setCommitInterval(int commitInterval) {
+        this.commitInterval = Math.max(0, commitInterval);
+    }
+
+    // Grava um checkpoint a cada commit intermediário e retoma dele na próxima execução
+    public void setRestartable(boolean restartable) {
+        this.restartable = restartable;
+    }
+
+    // Isola as linhas rejeitadas pelo banco (gravadas no .bad) e interrompe a carga acima deste limite
+    public void setMaxErrors(long maxErrors) {
+        this.maxErrors = Math.max(0, maxErrors);
+    }
+
+    public void setMetricsInterval(int metricsInterval) {
+        this.metricsInterval = Math.max(0, metricsInterval);
+    }
+
+    public void setMetricsFile(String metricsFile) {
+        this.metricsFile = metricsFile;
+    }
+
+    // MARKER exige uma coluna da tabela preenchida pelo arquivo com o valor que identifica a carga
+    public void setRowCountVerification(RowCountVerification rowCountVerification, String markerColumn, String markerValue) {
+        if (rowCountVerification == RowCountVerification.MARKER) {
+            if (markerColumn == null || markerValue == null) {
+                throw new IllegalArgumentException("ROW_COUNT_VERIFICATION=MARKER exige LOAD_MARKER_COLUMN e LOAD_MARKER_VALUE.");
+            }
+            TableMetadata.ColumnMetadata column = findColumn(markerColumn);
+            if (column == null) {
+                throw new IllegalArgumentException("Coluna de marcador inexistente na tabela " + tableMetadata.getQualifiedName() + ": " + markerColumn);
+            }
+            this.markerColumn = column.getName();
+            this.markerValue = markerValue;
+        }
+        this.rowCountVerification = rowCountVerification;
+    }
+
+    private TableMetadata.ColumnMetadata findColumn(String name) {
+        for (TableMetadata.ColumnMetadata column : tableMetadata.getColumns()) {
+            if (column.getName().equalsIgnoreCase(name)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    public void setLoadStrategy(LoadStrategy loadStrategy) {
+        this.loadStrategy = loadStrategy;
+    }
+
+    String generateInsertSql() {
+        return loadStrategy.buildStatementSql(tableMetadata);
+    }
+
+    public void loadData(CSVParser parser) throws IOException, SQLException {
+        int threads = loadThreads;
+        if (threads > 1 && loadStrategy.locksTable()) {
+            Log.warn("o método de carga bloqueia a tabela; LOAD_THREADS=" + threads + " ignorado, carga com um único worker.");
+            threads = 1;
+        }
+        if (threads > 1 && restartable) {
+            Log.warn("a carga reiniciável exige leitura ordenada; LOAD_THREADS=" + threads + " ignorado, carga com um único worker.");
+            threads = 1;
+        }
+        if (loadStrategy.commitsEachBatch()) {
+            // Isolar as linhas executa várias partes do lote na mesma transação, o que o direct-path
+            // não admite (ORA-12838 a partir da segunda parte)
+            if (maxErrors > 0) {
+                throw new IllegalArgumentException("MAX_ERRORS=" + maxErrors + " não é suportado com um método de carga que confirma cada lote"
+                        + " (LOAD_METHOD=DIRECT_PATH); use LOAD_METHOD=CONVENTIONAL ou MAX_ERRORS=0.");
+            }
+            Log.warn("cada lote é confirmado ao ser executado; uma falha desfaz apenas o lote corrente.");
+        }
+
+        metrics = new LoadMetrics(tableMetadata.getQualifiedName(), parser.getCsvFilePath(), parser.getInputSize(), parser.getEstimatedTotalRows());
+        errorIsolator = new BatchErrorIsolator(rowBinder, parser, maxErrors, metrics);
+        metrics.startReporting(metricsInterval);
+        try {
+            long initialCount = rowCountVerification == RowCountVerification.FULL ? countTableRows(false) : 0;
+            runStrategyHook(true);
+            if (threads > 1) {
+                new ParallelDataLoader(this, threads, commitMode).loadData(parser);
+            } else if (pipelineDepth > 0) {
+                new PipelinedDataLoader(this, pipelineDepth).loadData(parser);
+            } else {
+                loadSequential(parser);
+            }
+            if (rowCountVerification != RowCountVerification.NONE && !metrics.hasFailed()) {
+                verifyRowCount(initialCount);
+            }
+        } catch (IOException | SQLException | RuntimeException e) {
+            metrics.recordFailure(e);
+            throw e;
+        } finally {
+            runStrategyHook(false);
+            metrics.finish();
+            writeMetricsSummary(parser);
+            if (batchSizer != null) {
+                batchSizer.printSummary();
+            }
+            if (maxErrors > 0 || errorIsolator.getRejectedRows() > 0) {
+                Log.info("Registros rejeitados pelo banco ou na conversão: " + errorIsolator.getRejectedRows()
+                        + (errorIsolator.getRejectedRows() > 0 ? " (gravados em " + parser.getCsvFilePath() + ".bad)" : ""));
+            }
+        }
+    }
+
+    private void writeMetricsSummary(CSVParser parser) {
+        String path = metricsFile != null && !metricsFile.isEmpty() ? metricsFile : parser.getCsvFilePath() + ".metrics.json";
+        try {
+            metrics.writeJson(path);
+        } catch (IOException e) {
+            Log.warn("Não foi possível gravar o resumo de métricas em " + path + ": " + e.getMessage());
+        }
+    }
+
+    // Erro de SQL que encerra a carga: registrado no log e no resumo de métricas
+    void logSqlError(SQLException e) {
+        metrics.recordFailure(e);
+        Log.error("Erro de SQL: " + e.getMessage());
+        Log.error("Código SQLState: " + e.getSQLState());
+        Log.error("Código de erro do banco de dados: " + e.getErrorCode());
+    }
+
+    // Ações da estratégia antes/depois da carga, em uma conexão própria
+    private void runStrategyHook(boolean before) throws SQLException {
+        try (Connection conn = connectionManager.openConnection()) {
+            if (before) {
+                loadStrategy.beforeLoad(conn, tableMetadata);
+            } else {
+                loadStrategy.afterLoad(conn, tableMetadata);
+            }
+            conn.commit();
+        }
+    }
+
+    private void loadSequential(CSVParser parser) throws IOException, SQLException {
+        String insertSql = generateInsertSql();
+        long estimatedRows = parser.getEstimatedTotalRows();
+        LoadCheckpoint checkpoint = openCheckpoint(parser);
+        long processedRows = checkpoint != null ? checkpoint.getRowsCommitted() : 0;
+        long nextProgress = PROGRESS_STEP_PERCENT;
+        int batchesSinceCommit = 0;
+
+        Connection conn = null;
+        try {
+            conn = connectionManager.openConnection();
+            PreparedStatement pstmt = conn.prepareStatement(insertSql);
+            Log.info("Linhas estimadas no arquivo: ~" + estimatedRows);
+
+            // O fim da carga é determinado pelo fim do arquivo, não pela estimativa
+            ColumnarBatch batch = newBatch(); // Reaproveitado em todos os lotes
+            while (true) {
+                long parseStart = System.nanoTime();
+                parser.fillBatch(batch, getBatchSize());
+                metrics.recordParse(batch.size(), System.nanoTime() - parseStart, parser.getPosition());
+                metrics.recordRejected(batch.getRejected());
+                if (batch.isEmpty()) {
+                    break;
+                }
+                processedRows += executeBatch(pstmt, batch);
+                if (getCommitInterval() > 0 && ++batchesSinceCommit >= getCommitInterval()) {
+                    commitCheckpoint(conn, checkpoint, parser.getPosition(), parser.getRecordsRead(), processedRows);
+                    batchesSinceCommit = 0;
+                }
+
+                if (estimatedRows > 0 && processedRows * 100 / estimatedRows >= nextProgress && nextProgress < 100) {
+                    Log.info("Progresso: " + processedRows + " de ~" + estimatedRows + " linhas (" + Math.min(99, processedRows * 100 / estimatedRows) + "%)");
+                    nextProgress = processedRows * 100 / estimatedRows / PROGRESS_STEP_PERCENT * PROGRESS_STEP_PERCENT + PROGRESS_STEP_PERCENT;
+                }
+            }
+            conn.commit(); // Commit só acontece se todas as linhas forem processadas sem erro
+            finishCheckpoint(checkpoint);
+            Log.info("Total de " + processedRows + " linhas inseridas com sucesso.");
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback(); // Rollback em qualquer exceção
+            }
+            logSqlError(e);
+            reportCheckpoint(checkpoint);
+        } catch (IOException e) {
+            // Falha de leitura (ex.: gzip truncado): desfaz o que passou do último checkpoint e informa onde retomar
+            if (conn != null) {
+                conn.rollback();
+            }
+            reportCheckpoint(checkpoint);
+            throw e;
+        } finally {
+            if (conn != null) {
+                conn.close(); // Fecha a conexão no bloco finally
+            }
+            parser.closeResources(); // Fecha os recursos do parser
+        }
+    }
+
+    // Na carga reiniciável, posiciona o parser no último checkpoint, se houver
+    LoadCheckpoint openCheckpoint(CSVParser parser) throws IOException {
+        if (!restartable) {
+            return null;
+        }
+        LoadCheckpoint checkpoint = new LoadCheckpoint(parser.getCsvFilePath());
+        if (checkpoint.load()) {
+            parser.resumeFrom(checkpoint.getPosition(), checkpoint.getRecordsRead());
+            metrics.recordResume(checkpoint.getPosition(), checkpoint.getRowsCommitted());
+            Log.info("Retomando a carga do checkpoint " + checkpoint.getPath() + ": " + checkpoint.getRowsCommitted()
+                    + " linhas já confirmadas, " + checkpoint.getRecordsRead() + " registros lidos.");
+        }
+        return checkpoint;
+    }
+
+    // Commit intermediário; o checkpoint só é gravado depois do commit para nunca apontar além do confirmado.
+    // Quando a estratégia confirma cada lote, o commit já foi feito em afterBatch.
+    void commitCheckpoint(Connection conn, LoadCheckpoint checkpoint, long position, long recordsRead, long rowsCommitted) throws SQLException, IOException {
+        if (!loadStrategy.commitsEachBatch()) {
+            conn.commit();
+        }
+        if (checkpoint != null) {
+            checkpoint.save(position, recordsRead, rowsCommitted);
+        }
+    }
+
+    void finishCheckpoint(LoadCheckpoint checkpoint) throws IOException {
+        if (checkpoint != null) {
+            checkpoint.delete();
+        }
+    }
+
+    void reportCheckpoint(LoadCheckpoint checkpoint) {
+        if (checkpoint != null && checkpoint.isPresent()) {
+            Log.error("Carga interrompida. " + checkpoint.getRowsCommitted() + " linhas confirmadas até o último checkpoint;"
+                    + " execute novamente para continuar a partir dele.");
+        } else if (checkpoint != null) {
+            Log.error("Carga interrompida antes do primeiro checkpoint; a próxima execução recomeça do início.");
+        }
+    }
+
+    // Converte (se o pipeline ainda não o fez) e vincula cada linha do lote e executa o batch;
+    // compartilhado com os workers paralelos. Retorna a quantidade de linhas gravadas.
+    int executeBatch(PreparedStatement pstmt, ColumnarBatch batch) throws SQLException {
+        long start = System.nanoTime();
+        if (!batch.isConverted()) {
+            rowBinder.convertBatch(batch);
+        }
+        if (batch.hasFailedRows()) {
+            errorIsolator.rejectFailedRows(batch);
+        }
+        int rows;
+        if (maxErrors > 0) {
+            // Vínculo e execução se alternam na bisseção; o tempo todo conta como executeBatch
+            long converted = System.nanoTime();
+            metrics.recordConvert(converted - start);
+            start = converted;
+            rows = errorIsolator.execute(pstmt, batch);
+        } else {
+            for (int i = 0; i < batch.size(); i++) {
+                rowBinder.bindRow(pstmt, batch, i);
+                pstmt.addBatch();
+            }
+            long bound = System.nanoTime();
+            metrics.recordConvert(bound - start);
+            start = bound;
+            rows = countWritten(pstmt.executeBatch());
+        }
+        afterBatch(pstmt.getConnection());
+        long elapsed = System.nanoTime() - start;
+        recordBatch(batch.size(), elapsed);
+        metrics.recordExecute(rows, elapsed);
+        return rows;
+    }
+
+    // Lote reutilizável com capacidade para o maior lote que a carga pode pedir
+    ColumnarBatch newBatch() {
+        return new ColumnarBatch(rowBinder.getColumnCount(), batchSizer != null ? batchSizer.getMaxBatchSize() : batchSize);
+    }
+
+    // Filas de lotes prontos e lotes livres entre o leitor e quem executa
+    BlockingQueue<ColumnarBatch> newBatchPool(int batches) {
+        BlockingQueue<ColumnarBatch> pool = new ArrayBlockingQueue<>(batches);
+        for (int i = 0; i < batches; i++) {
+            pool.add(newBatch());
+        }
+        return pool;
+    }
+
+    // Linhas gravadas segundo as contagens do executeBatch; SUCCESS_NO_INFO (comum no Oracle) conta como uma linha
+    static int countWritten(int[] updateCounts) {
+        int rows = 0;
+        for (int count : updateCounts) {
+            if (count > 0) {
+                rows += count;
+            } else if (count == Statement.SUCCESS_NO_INFO) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    // Informa ao ajuste adaptativo o tempo de ida e volta de um lote
+    private void recordBatch(int rows, long elapsedNanos) {
+        if (batchSizer != null) {
+            batchSizer.record(rows, elapsedNanos);
+        }
+    }
+
+    // Confirma o lote quando a estratégia não admite outro comando na tabela antes do commit
+    private void afterBatch(Connection conn) throws SQLException {
+        if (loadStrategy.commitsEachBatch()) {
+            conn.commit();
+        }
+    }
+
+    // Verdadeiro quando os rejeitados já passaram de MAX_ERRORS e a carga deve parar
+    boolean isRejectLimitExceeded() {
+        return errorIsolator != null && errorIsolator.getRejectedRows() > maxErrors;
+    }
+
+    LoadMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Lotes entre commits intermediários. Se a estratégia confirma cada lote, o checkpoint precisa
+    // acompanhar cada commit: numa retomada, lotes confirmados depois do último checkpoint seriam
+    // inseridos de novo.
+    int getCommitInterval() {
+        return loadStrategy.commitsEachBatch() && restartable ? 1 : commitInterval;
+    }
+
+    RowBinder getRowBinder() {
+        return rowBinder;
+    }
+
+    ConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    // Tamanho do próximo lote; no modo adaptativo muda ao longo da carga
+    int getBatchSize() {
+        return batchSizer != null ? batchSizer.getBatchSize() : batchSize;
+    }
+
+    // COUNT(*) em conexão própria, da tabela inteira ou só das linhas com o marcador de carga
+    private long countTableRows(boolean byMarker) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM " + tableMetadata.getQualifiedName() + (byMarker ? " WHERE " + markerColumn + " = ?" : "");
+        try (Connection conn = connectionManager.openConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            if (byMarker) {
+                pstmt.setString(1, markerValue);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    // Compara as linhas gravadas segundo os contadores da carga com a contagem na tabela
+    private void verifyRowCount(long initialCount) throws SQLException {
+        long expected = metrics.getRowsInserted() + metrics.getResumedRows();
+        long counted;
+        if (rowCountVerification == RowCountVerification.FULL) {
+            counted = countTableRows(false) - initialCount;
+        } else {
+            counted = countTableRows(true);
+        }
+        if (counted == expected) {
+            Log.info("Conferência " + rowCountVerification + ": " + counted + " linhas na tabela, conforme os contadores da carga.");
+        } else {
+            Log.warn("Conferência " + rowCountVerification + ": " + counted + " linhas na tabela, mas a carga contabilizou " + expected + ".");
+        }
+    }
+}
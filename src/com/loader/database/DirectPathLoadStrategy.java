@@ -0,0 +1,111 @@
+package com.loader.database;
+
+import com.loader.util.Log;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * INSERT direct-path (hint APPEND_VALUES) com binds em array: os blocos são gravados acima da
+ * high-water mark, sem undo para os dados. O Oracle não permite outro comando na tabela antes do
+ * commit, por isso cada lote é confirmado ao ser executado e a carga não pode ser paralela.
+ *
+ * Opcionalmente coloca a tabela em NOLOGGING durante a carga e marca os índices não únicos como
+ * UNUSABLE, reconstruindo-os ao final.
+ */
+public class DirectPathLoadStrategy implements LoadStrategy {
+    private static final String CURRENT_SCHEMA = "SYS_CONTEXT('USERENV', 'CURRENT_SCHEMA')";
+
+    private final boolean nologging;
+    private final boolean rebuildIndexes;
+    private final List<String> unusableIndexes = new ArrayList<>();
+    private boolean loggingDisabled;
+
+    public DirectPathLoadStrategy(boolean nologging, boolean rebuildIndexes) {
+        this.nologging = nologging;
+        this.rebuildIndexes = rebuildIndexes;
+    }
+
+    @Override
+    public String buildStatementSql(TableMetadata tableMetadata) {
+        return ConventionalLoadStrategy.buildInsertSql(tableMetadata, "/*+ APPEND_VALUES */ ");
+    }
+
+    @Override
+    public void beforeLoad(Connection conn, TableMetadata tableMetadata) throws SQLException {
+        try (Statement statement = conn.createStatement()) {
+            if (nologging && isTableLogging(conn, tableMetadata)) {
+                statement.execute("ALTER TABLE " + tableMetadata.getQualifiedName() + " NOLOGGING");
+                loggingDisabled = true;
+                Log.info("Tabela " + tableMetadata.getQualifiedName() + " alterada para NOLOGGING durante a carga.");
+            }
+            if (rebuildIndexes) {
+                for (String index : findRebuildableIndexes(conn, tableMetadata)) {
+                    statement.execute("ALTER INDEX " + index + " UNUSABLE");
+                    unusableIndexes.add(index);
+                    Log.info("Índice " + index + " desabilitado durante a carga.");
+                }
+            }
+        }
+    }
+
+    @Override
+    public void afterLoad(Connection conn, TableMetadata tableMetadata) throws SQLException {
+        try (Statement statement = conn.createStatement()) {
+            for (String index : unusableIndexes) {
+                long start = System.currentTimeMillis();
+                statement.execute("ALTER INDEX " + index + " REBUILD" + (nologging ? " NOLOGGING" : ""));
+                Log.info("Índice " + index + " reconstruído em " + (System.currentTimeMillis() - start) + " ms.");
+            }
+            unusableIndexes.clear();
+            if (loggingDisabled) {
+                statement.execute("ALTER TABLE " + tableMetadata.getQualifiedName() + " LOGGING");
+                loggingDisabled = false;
+                Log.info("Tabela " + tableMetadata.getQualifiedName() + " de volta a LOGGING. Os dados carregados sem redo "
+                        + "não são recuperáveis por mídia até o próximo backup.");
+            }
+        }
+    }
+
+    private boolean isTableLogging(Connection conn, TableMetadata tableMetadata) throws SQLException {
+        String sql = "SELECT LOGGING FROM ALL_TABLES WHERE OWNER = NVL(?, " + CURRENT_SCHEMA + ") AND TABLE_NAME = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, tableMetadata.getSchema());
+            pstmt.setString(2, tableMetadata.getTableName());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && "YES".equals(rs.getString(1));
+            }
+        }
+    }
+
+    // Índices únicos continuam ativos: o Oracle não permite inserir com um índice único UNUSABLE
+    private List<String> findRebuildableIndexes(Connection conn, TableMetadata tableMetadata) throws SQLException {
+        String sql = "SELECT OWNER, INDEX_NAME FROM ALL_INDEXES WHERE TABLE_OWNER = NVL(?, " + CURRENT_SCHEMA + ") AND TABLE_NAME = ?"
+                + " AND UNIQUENESS = 'NONUNIQUE' AND STATUS = 'VALID' AND INDEX_TYPE NOT IN ('LOB', 'IOT - TOP')";
+        List<String> indexes = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, tableMetadata.getSchema());
+            pstmt.setString(2, tableMetadata.getTableName());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    indexes.add(rs.getString("OWNER") + "." + rs.getString("INDEX_NAME"));
+                }
+            }
+        }
+        return indexes;
+    }
+
+    @Override
+    public boolean commitsEachBatch() {
+        return true;
+    }
+
+    @Override
+    public boolean locksTable() {
+        return true;
+    }
+}
@@ -0,0 +1,106 @@
+package com.loader.database;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Arquivo de checkpoint de uma carga reiniciável ({@code <csv>.ckpt}): posição em bytes do próximo
+ * registro do CSV, registros lidos e linhas confirmadas no último commit. É gravado em um arquivo
+ * temporário e movido por cima do anterior, para que uma queda durante a gravação não o corrompa.
+ *
+ * O tamanho e a data de modificação do CSV são guardados junto: se o arquivo mudar, o checkpoint
+ * deixa de ser aceito, pois a posição salva não corresponderia mais às mesmas linhas.
+ */
+public class LoadCheckpoint {
+    private final File csvFile;
+    private final File checkpointFile;
+
+    private long position = -1;
+    private long recordsRead;
+    private long rowsCommitted;
+    private boolean present; // Checkpoint lido ou já gravado nesta execução
+
+    public LoadCheckpoint(String csvFilePath) {
+        this.csvFile = new File(csvFilePath);
+        this.checkpointFile = new File(csvFilePath + ".ckpt");
+    }
+
+    /**
+     * Lê o checkpoint existente. Retorna false quando não há checkpoint (carga do início).
+     */
+    public boolean load() throws IOException {
+        if (!checkpointFile.exists()) {
+            return false;
+        }
+        Properties properties = new Properties();
+        try (InputStream input = new FileInputStream(checkpointFile)) {
+            properties.load(input);
+        }
+        if (csvFile.length() != Long.parseLong(properties.getProperty("csvSize", "-1"))
+                || csvFile.lastModified() != Long.parseLong(properties.getProperty("csvLastModified", "-1"))) {
+            throw new IOException("O arquivo CSV foi alterado desde o checkpoint " + checkpointFile.getPath()
+                    + ". Remova o checkpoint para recomeçar a carga do início.");
+        }
+        position = Long.parseLong(properties.getProperty("position"));
+        recordsRead = Long.parseLong(properties.getProperty("recordsRead"));
+        rowsCommitted = Long.parseLong(properties.getProperty("rowsCommitted"));
+        present = true;
+        return true;
+    }
+
+    public void save(long position, long recordsRead, long rowsCommitted) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("position", String.valueOf(position));
+        properties.setProperty("recordsRead", String.valueOf(recordsRead));
+        properties.setProperty("rowsCommitted", String.valueOf(rowsCommitted));
+        properties.setProperty("csvSize", String.valueOf(csvFile.length()));
+        properties.setProperty("csvLastModified", String.valueOf(csvFile.lastModified()));
+
+        File tempFile = new File(checkpointFile.getPath() + ".tmp");
+        try (FileOutputStream output = new FileOutputStream(tempFile)) {
+            properties.store(output, "Checkpoint de carga de " + csvFile.getName());
+            output.getFD().sync();
+        }
+        try {
+            Files.move(tempFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        this.position = position;
+        this.recordsRead = recordsRead;
+        this.rowsCommitted = rowsCommitted;
+        this.present = true;
+    }
+
+    // Carga concluída: o próximo início volta ao começo do arquivo
+    public void delete() throws IOException {
+        Files.deleteIfExists(checkpointFile.toPath());
+    }
+
+    public boolean isPresent() {
+        return present;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getRecordsRead() {
+        return recordsRead;
+    }
+
+    public long getRowsCommitted() {
+        return rowsCommitted;
+    }
+
+    public String getPath() {
+        return checkpointFile.getPath();
+    }
+}
@@ -0,0 +1,13 @@
+package com.loader.database;
+
+/**
+ * Método de carga selecionado pelo parâmetro LOAD_METHOD.
+ */
+public enum LoadMethod {
+    /** INSERT convencional, com undo/redo e manutenção de índices linha a linha. */
+    CONVENTIONAL,
+    /** INSERT direct-path com o hint APPEND_VALUES e binds em array. */
+    DIRECT_PATH,
+    /** MERGE pelas colunas-chave: atualiza as linhas existentes e insere as novas. */
+    UPSERT
+}
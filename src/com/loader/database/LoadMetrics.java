@@ -0,0 +1,299 @@
+package com.loader.database;
+
+import com.loader.util.DateUtils;
+import com.loader.util.Log;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Métricas de uma carga: linhas e bytes lidos, linhas gravadas e rejeitadas, tempo gasto em parse,
+ * conversão/vínculo e executeBatch, latência dos lotes (percentis) e estimativa de término.
+ * Os contadores são alimentados pelos loaders (inclusive por várias threads); um relatório é
+ * registrado no log a cada intervalo e, ao final, um resumo é gravado em JSON.
+ */
+public class LoadMetrics {
+    private final String tableName;
+    private final String csvFilePath;
+    private final long fileSize;
+    private final long estimatedRows;
+    private final String startTimestamp = DateUtils.getCurrentTimestamp();
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsInserted = new AtomicLong();
+    private final AtomicLong rowsRejected = new AtomicLong();
+    private final AtomicLong parseNanos = new AtomicLong();
+    private final AtomicLong convertNanos = new AtomicLong();
+    private final AtomicLong executeNanos = new AtomicLong();
+    private volatile long basePosition; // Posição inicial (diferente de 0 ao retomar de um checkpoint)
+    private volatile long position = -1;
+    private volatile long resumedRows; // Linhas confirmadas em execuções anteriores
+    private volatile String failure;
+
+    // Latência de cada executeBatch, em nanossegundos
+    private long[] batchLatencies = new long[1024];
+    private int batches;
+
+    private ScheduledExecutorService reporter;
+    private long endNanos;
+
+    /**
+     * @param inputSize bytes a ler do arquivo (descompactados, se for o caso), para a vazão e o término estimado
+     */
+    public LoadMetrics(String tableName, String csvFilePath, long inputSize, long estimatedRows) {
+        this.tableName = tableName;
+        this.csvFilePath = csvFilePath;
+        this.fileSize = inputSize;
+        this.estimatedRows = estimatedRows;
+    }
+
+    /**
+     * Lote lido do arquivo. 'position' é a posição em bytes após o lote, ou -1 se desconhecida.
+     */
+    public void recordParse(int rows, long nanos, long position) {
+        rowsRead.addAndGet(rows);
+        parseNanos.addAndGet(nanos);
+        if (position >= 0) {
+            this.position = position;
+        }
+    }
+
+    /**
+     * Carga retomada de um checkpoint: os bytes anteriores a 'position' não contam na vazão e as
+     * linhas já confirmadas entram só na conferência final.
+     */
+    public void recordResume(long position, long rowsCommitted) {
+        resumedRows = rowsCommitted;
+        if (position >= 0) {
+            this.basePosition = position;
+            this.position = position;
+        }
+    }
+
+    public void recordConvert(long nanos) {
+        convertNanos.addAndGet(nanos);
+    }
+
+    public void recordExecute(int rowsWritten, long nanos) {
+        rowsInserted.addAndGet(rowsWritten);
+        executeNanos.addAndGet(nanos);
+        synchronized (this) {
+            if (batches == batchLatencies.length) {
+                batchLatencies = Arrays.copyOf(batchLatencies, batches * 2);
+            }
+            batchLatencies[batches++] = nanos;
+        }
+    }
+
+    // Linhas executadas e depois desfeitas (ex.: worker com falha em PER_WORKER), que não estão na tabela
+    public void recordRolledBack(long rows) {
+        rowsInserted.addAndGet(-rows);
+    }
+
+    public void recordRejected(long rows) {
+        rowsRejected.addAndGet(rows);
+    }
+
+    public void recordFailure(Exception e) {
+        failure = e.getMessage() != null ? e.getMessage() : e.toString();
+    }
+
+    public String getCsvFilePath() {
+        return csvFilePath;
+    }
+
+    // Mensagem do erro que encerrou a carga, ou nulo
+    public String getFailure() {
+        return failure;
+    }
+
+    public long getRowsInserted() {
+        return rowsInserted.get();
+    }
+
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public long getResumedRows() {
+        return resumedRows;
+    }
+
+    public boolean hasFailed() {
+        return failure != null;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected.get();
+    }
+
+    /**
+     * Inicia o relatório periódico no log (intervalo em segundos; 0 desliga).
+     */
+    public void startReporting(int intervalSeconds) {
+        if (intervalSeconds <= 0) {
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "loader-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> Log.info(progressLine()), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Encerra o relatório periódico e registra o resumo final no log.
+     */
+    public void finish() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+        endNanos = System.nanoTime();
+        long[] percentiles = latencyPercentiles();
+        Log.info(String.format(Locale.ROOT, "Resumo da carga: %d linhas lidas, %d gravadas, %d rejeitadas em %.1f s (%.0f linhas/s, %.2f MB/s)",
+                rowsRead.get(), rowsInserted.get(), rowsRejected.get(), elapsedNanos() / 1e9, rowsPerSecond(), bytesPerSecond() / (1024 * 1024)));
+        Log.info(String.format(Locale.ROOT, "Tempo por etapa: parse %.1f s, conversão %.1f s, executeBatch %.1f s; latência dos lotes p50 %.1f ms, p95 %.1f ms, p99 %.1f ms, máx %.1f ms (%d lotes)",
+                parseNanos.get() / 1e9, convertNanos.get() / 1e9, executeNanos.get() / 1e9,
+                percentiles[0] / 1e6, percentiles[1] / 1e6, percentiles[2] / 1e6, percentiles[3] / 1e6, batchCount()));
+    }
+
+    private String progressLine() {
+        long[] percentiles = latencyPercentiles();
+        return String.format(Locale.ROOT, "Métricas: %d linhas gravadas (%.0f linhas/s, %.2f MB/s), %d rejeitadas; parse %.1f s, conversão %.1f s, executeBatch %.1f s; lote p50 %.1f ms, p95 %.1f ms; término estimado em %s",
+                rowsInserted.get(), rowsPerSecond(), bytesPerSecond() / (1024 * 1024), rowsRejected.get(),
+                parseNanos.get() / 1e9, convertNanos.get() / 1e9, executeNanos.get() / 1e9,
+                percentiles[0] / 1e6, percentiles[1] / 1e6, formatEta());
+    }
+
+    // Pelo volume de bytes quando a posição no arquivo é conhecida; senão, pela estimativa de linhas
+    private String formatEta() {
+        double remainingSeconds;
+        if (position >= 0 && fileSize > 0) {
+            double rate = bytesPerSecond();
+            remainingSeconds = rate > 0 ? (fileSize - position) / rate : -1;
+        } else {
+            double rate = rowsPerSecond();
+            remainingSeconds = rate > 0 && estimatedRows > 0 ? Math.max(0, estimatedRows - rowsRead.get()) / rate : -1;
+        }
+        if (remainingSeconds < 0) {
+            return "n/d";
+        }
+        long seconds = (long) remainingSeconds;
+        return String.format("%02d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+
+    private long elapsedNanos() {
+        return (endNanos > 0 ? endNanos : System.nanoTime()) - startNanos;
+    }
+
+    private double rowsPerSecond() {
+        long elapsed = elapsedNanos();
+        return elapsed > 0 ? rowsInserted.get() * 1e9 / elapsed : 0;
+    }
+
+    private double bytesPerSecond() {
+        long elapsed = elapsedNanos();
+        return elapsed > 0 ? bytesRead() * 1e9 / elapsed : 0;
+    }
+
+    private long bytesRead() {
+        return position >= 0 ? position - basePosition : 0;
+    }
+
+    private synchronized int batchCount() {
+        return batches;
+    }
+
+    // p50, p95, p99 e máximo
+    private long[] latencyPercentiles() {
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(batchLatencies, batches);
+        }
+        if (sorted.length == 0) {
+            return new long[4];
+        }
+        Arrays.sort(sorted);
+        return new long[] {percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99), sorted[sorted.length - 1]};
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /**
+     * Grava o resumo da carga em JSON, para acompanhamento entre execuções.
+     */
+    public void writeJson(String path) throws IOException {
+        long[] percentiles = latencyPercentiles();
+        StringBuilder json = new StringBuilder("{\n");
+        appendField(json, "table", quote(tableName));
+        appendField(json, "csvFile", quote(csvFilePath));
+        appendField(json, "status", quote(failure == null ? "SUCCESS" : "FAILED"));
+        appendField(json, "error", failure == null ? "null" : quote(failure));
+        appendField(json, "start", quote(startTimestamp));
+        appendField(json, "end", quote(DateUtils.getCurrentTimestamp()));
+        appendField(json, "elapsedSeconds", seconds(elapsedNanos()));
+        appendField(json, "rowsRead", String.valueOf(rowsRead.get()));
+        appendField(json, "rowsInserted", String.valueOf(rowsInserted.get()));
+        appendField(json, "rowsRejected", String.valueOf(rowsRejected.get()));
+        appendField(json, "bytesRead", String.valueOf(bytesRead()));
+        appendField(json, "rowsPerSecond", String.format(Locale.ROOT, "%.1f", rowsPerSecond()));
+        appendField(json, "bytesPerSecond", String.format(Locale.ROOT, "%.1f", bytesPerSecond()));
+        appendField(json, "parseSeconds", seconds(parseNanos.get()));
+        appendField(json, "convertSeconds", seconds(convertNanos.get()));
+        appendField(json, "executeSeconds", seconds(executeNanos.get()));
+        appendField(json, "batches", String.valueOf(batchCount()));
+        json.append("  \"batchLatencyMs\": {")
+                .append("\"p50\": ").append(millis(percentiles[0]))
+                .append(", \"p95\": ").append(millis(percentiles[1]))
+                .append(", \"p99\": ").append(millis(percentiles[2]))
+                .append(", \"max\": ").append(millis(percentiles[3]))
+                .append("}\n}\n");
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(path), StandardCharsets.UTF_8)) {
+            writer.write(json.toString());
+        }
+        Log.info("Resumo da carga gravado em " + path);
+    }
+
+    static void appendField(StringBuilder json, String name, String value) {
+        json.append("  \"").append(name).append("\": ").append(value).append(",\n");
+    }
+
+    static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e9);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
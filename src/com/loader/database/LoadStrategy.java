@@ -0,0 +1,38 @@
+package com.loader.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Define o comando usado para gravar as linhas e as ações executadas antes e depois da carga.
+ * A geração do SQL fica isolada aqui para que cada método de carga possa ser verificado contra
+ * qualquer banco JDBC (hints Oracle são comentários e são ignorados por outros bancos).
+ */
+public interface LoadStrategy {
+
+    /**
+     * Comando parametrizado com um marcador por coluna, na ordem de {@link TableMetadata#getColumns()}.
+     */
+    String buildStatementSql(TableMetadata tableMetadata);
+
+    /**
+     * Executado uma vez, em conexão própria, antes do primeiro lote.
+     */
+    void beforeLoad(Connection conn, TableMetadata tableMetadata) throws SQLException;
+
+    /**
+     * Executado uma vez, em conexão própria, depois da carga (inclusive quando ela falha).
+     */
+    void afterLoad(Connection conn, TableMetadata tableMetadata) throws SQLException;
+
+    /**
+     * Indica se cada lote precisa ser confirmado logo após a execução (ex.: inserção direct-path,
+     * que não permite outro comando na mesma tabela antes do commit).
+     */
+    boolean commitsEachBatch();
+
+    /**
+     * Indica se a estratégia bloqueia a tabela inteira, o que impede workers paralelos.
+     */
+    boolean locksTable();
+}
@@ -0,0 +1,161 @@
+package com.loader.database;
+
+import com.loader.util.Log;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Cache em disco dos metadados da tabela e dos parâmetros NLS da sessão, por instância (URL e
+ * usuário). Uma execução seguinte reaproveita o snapshot em vez de consultar o dicionário de dados.
+ *
+ * Os snapshots expiram depois do TTL. O das colunas também é descartado se o LAST_DDL_TIME da tabela
+ * mudou; o dos parâmetros NLS leva em conta o locale da JVM, do qual o driver deriva o idioma e o
+ * território da sessão. O cache é só uma otimização: falhas de leitura ou gravação são registradas e
+ * a consulta ao banco é feita normalmente.
+ */
+public class MetadataCache {
+    public static final int DEFAULT_TTL_SECONDS = 86400;
+
+    private final File directory;
+    private final String instanceKey;
+    private final long ttlMillis;
+
+    public MetadataCache(String directory, String dbUrl, String dbUser, long ttlSeconds) {
+        this.directory = new File(directory);
+        this.instanceKey = dbUrl + "|" + (dbUser == null ? "" : dbUser.toUpperCase(Locale.ROOT));
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * Colunas do snapshot, ou nulo se não houver snapshot válido para esse LAST_DDL_TIME.
+     */
+    List<TableMetadata.ColumnMetadata> loadColumns(String qualifiedName, long lastDdlTime) {
+        File file = fileFor("table", qualifiedName);
+        Properties properties = read(file);
+        if (properties == null) {
+            return null;
+        }
+        List<TableMetadata.ColumnMetadata> columns;
+        try {
+            if (lastDdlTime != Long.parseLong(properties.getProperty("lastDdlTime", "-1"))) {
+                Log.info("Cache de metadados descartado: a tabela " + qualifiedName + " foi alterada (LAST_DDL_TIME).");
+                return null;
+            }
+            int count = Integer.parseInt(properties.getProperty("columns", "0"));
+            columns = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                columns.add(new TableMetadata.ColumnMetadata(properties.getProperty("column." + i + ".name"),
+                        properties.getProperty("column." + i + ".type"),
+                        Integer.parseInt(properties.getProperty("column." + i + ".sqlType"))));
+            }
+        } catch (NumberFormatException e) {
+            Log.warn("Cache de metadados inválido, ignorado: " + file.getPath());
+            return null;
+        }
+        Log.info("Metadados da tabela " + qualifiedName + " lidos do cache " + file.getPath());
+        return columns;
+    }
+
+    void saveColumns(String qualifiedName, long lastDdlTime, List<TableMetadata.ColumnMetadata> columns) {
+        Properties properties = new Properties();
+        properties.setProperty("lastDdlTime", String.valueOf(lastDdlTime));
+        properties.setProperty("columns", String.valueOf(columns.size()));
+        for (int i = 0; i < columns.size(); i++) {
+            TableMetadata.ColumnMetadata column = columns.get(i);
+            properties.setProperty("column." + i + ".name", column.getName());
+            properties.setProperty("column." + i + ".type", column.getType());
+            properties.setProperty("column." + i + ".sqlType", String.valueOf(column.getSqlType()));
+        }
+        write(fileFor("table", qualifiedName), properties, "Metadados de " + qualifiedName);
+    }
+
+    /**
+     * Parâmetros NLS do snapshot, ou nulo se não houver snapshot válido.
+     */
+    Map<String, String> loadNlsParameters() {
+        File file = fileFor("nls", Locale.getDefault().toString());
+        Properties properties = read(file);
+        if (properties == null) {
+            return null;
+        }
+        Map<String, String> parameters = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith("nls.")) {
+                parameters.put(name.substring(4), properties.getProperty(name));
+            }
+        }
+        Log.debug("Parâmetros NLS lidos do cache " + file.getPath());
+        return parameters;
+    }
+
+    void saveNlsParameters(Map<String, String> parameters) {
+        Properties properties = new Properties();
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            properties.setProperty("nls." + parameter.getKey(), parameter.getValue() == null ? "" : parameter.getValue());
+        }
+        write(fileFor("nls", Locale.getDefault().toString()), properties, "Parâmetros NLS da sessão");
+    }
+
+    // Um arquivo por instância e objeto; o hash separa instâncias sem expor a URL no nome
+    private File fileFor(String kind, String name) {
+        String safeName = name.replaceAll("[^A-Za-z0-9_.$#-]", "_");
+        return new File(directory, String.format("%s-%s-%08x.properties", kind, safeName, instanceKey.hashCode()));
+    }
+
+    // Snapshot dentro do TTL, ou nulo
+    private Properties read(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream input = new FileInputStream(file)) {
+            properties.load(input);
+        } catch (IOException e) {
+            Log.warn("Não foi possível ler o cache de metadados " + file.getPath() + ": " + e.getMessage());
+            return null;
+        }
+        long savedAt;
+        try {
+            savedAt = Long.parseLong(properties.getProperty("savedAt", "0"));
+        } catch (NumberFormatException e) {
+            savedAt = 0;
+        }
+        if (!instanceKey.equals(properties.getProperty("instance")) || System.currentTimeMillis() - savedAt > ttlMillis) {
+            Log.debug("Cache de metadados expirado: " + file.getPath());
+            return null;
+        }
+        return properties;
+    }
+
+    private void write(File file, Properties properties, String comment) {
+        properties.setProperty("instance", instanceKey);
+        properties.setProperty("savedAt", String.valueOf(System.currentTimeMillis()));
+        File tempFile = new File(file.getPath() + ".tmp");
+        try {
+            Files.createDirectories(directory.toPath());
+            try (FileOutputStream output = new FileOutputStream(tempFile)) {
+                properties.store(output, comment);
+            }
+            try {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            Log.debug("Cache de metadados gravado em " + file.getPath());
+        } catch (IOException e) {
+            Log.warn("Não foi possível gravar o cache de metadados " + file.getPath() + ": " + e.getMessage());
+        }
+    }
+}
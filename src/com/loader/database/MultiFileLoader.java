@@ -0,0 +1,204 @@
+package com.loader.database;
+
+import com.loader.csv.CSVParser;
+import com.loader.util.DateUtils;
+import com.loader.util.Log;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Carga de vários arquivos CSV na mesma execução. Metadados da tabela, parâmetros NLS e o
+ * ConnectionManager são obtidos uma única vez e compartilhados; cada arquivo tem o seu próprio
+ * CSVParser e DataLoader (com checkpoint, .bad e resumo de métricas próprios) e até FILE_THREADS
+ * arquivos são carregados ao mesmo tempo.
+ *
+ * A falha de um arquivo é registrada e não interrompe os demais. Ao final, um resumo consolidado é
+ * registrado no log e, se configurado, gravado em JSON.
+ */
+public class MultiFileLoader {
+
+    /**
+     * Cria o parser e o loader de cada arquivo, com a configuração da execução.
+     */
+    public interface LoaderFactory {
+        CSVParser createParser(String csvFilePath) throws IOException;
+
+        DataLoader createLoader();
+    }
+
+    private final LoaderFactory factory;
+    private final int fileThreads;
+    private final String tableName;
+
+    public MultiFileLoader(LoaderFactory factory, int fileThreads, String tableName) {
+        this.factory = factory;
+        this.fileThreads = Math.max(1, fileThreads);
+        this.tableName = tableName;
+    }
+
+    /**
+     * Carrega os arquivos e grava o resumo consolidado em 'summaryFile' (nulo não grava).
+     * Lança exceção se algum arquivo falhar, depois de tentar todos.
+     */
+    public void loadFiles(List<String> csvFiles, String summaryFile) throws IOException {
+        int threads = Math.min(fileThreads, csvFiles.size());
+        Log.info("Carga de " + csvFiles.size() + " arquivos com " + threads + " em paralelo.");
+        long startNanos = System.nanoTime();
+        String startTimestamp = DateUtils.getCurrentTimestamp();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "loader-file-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<FileResult> results = new ArrayList<>();
+        try {
+            List<Future<FileResult>> futures = new ArrayList<>();
+            for (String csvFile : csvFiles) {
+                futures.add(executor.submit(() -> loadFile(csvFile)));
+            }
+            for (Future<FileResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Carga de arquivos interrompida", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Falha inesperada na carga de arquivos", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        int failed = printSummary(results, elapsedNanos);
+        if (summaryFile != null && !summaryFile.isEmpty()) {
+            writeJson(summaryFile, results, startTimestamp, elapsedNanos);
+        }
+        if (failed > 0) {
+            throw new IOException(failed + " de " + results.size() + " arquivos falharam; veja o log e o resumo de cada arquivo.");
+        }
+    }
+
+    private FileResult loadFile(String csvFile) {
+        Log.info(DateUtils.getCurrentTimestamp() + " - Início do arquivo " + csvFile);
+        DataLoader loader = factory.createLoader();
+        String error = null;
+        try {
+            loader.loadData(factory.createParser(csvFile));
+        } catch (IOException | SQLException | RuntimeException e) {
+            error = e.getMessage() != null ? e.getMessage() : e.toString();
+        }
+
+        // Falhas de SQL ficam registradas nas métricas sem exceção
+        LoadMetrics metrics = loader.getMetrics();
+        if (error == null && metrics != null && metrics.hasFailed()) {
+            error = metrics.getFailure();
+        }
+        if (error != null) {
+            Log.error("Falha na carga do arquivo " + csvFile + ": " + error);
+        } else {
+            Log.info(DateUtils.getCurrentTimestamp() + " - Fim do arquivo " + csvFile);
+        }
+        return new FileResult(csvFile, metrics, error);
+    }
+
+    private int printSummary(List<FileResult> results, long elapsedNanos) {
+        long rowsRead = 0;
+        long rowsInserted = 0;
+        long rowsRejected = 0;
+        int failed = 0;
+        for (FileResult result : results) {
+            rowsRead += result.rowsRead();
+            rowsInserted += result.rowsInserted();
+            rowsRejected += result.rowsRejected();
+            if (result.error != null) {
+                failed++;
+                Log.warn("Arquivo com falha: " + result.csvFile);
+            }
+        }
+        Log.info(String.format(Locale.ROOT, "Resumo consolidado: %d arquivos (%d com sucesso, %d com falha), %d linhas lidas, %d gravadas, %d rejeitadas em %.1f s (%.0f linhas/s)",
+                results.size(), results.size() - failed, failed, rowsRead, rowsInserted, rowsRejected,
+                elapsedNanos / 1e9, elapsedNanos > 0 ? rowsInserted * 1e9 / elapsedNanos : 0));
+        return failed;
+    }
+
+    private void writeJson(String path, List<FileResult> results, String startTimestamp, long elapsedNanos) {
+        long rowsRead = 0;
+        long rowsInserted = 0;
+        long rowsRejected = 0;
+        int failed = 0;
+        StringBuilder files = new StringBuilder();
+        for (FileResult result : results) {
+            rowsRead += result.rowsRead();
+            rowsInserted += result.rowsInserted();
+            rowsRejected += result.rowsRejected();
+            failed += result.error != null ? 1 : 0;
+            files.append(files.length() == 0 ? "\n" : ",\n")
+                    .append("    {\"csvFile\": ").append(LoadMetrics.quote(result.csvFile))
+                    .append(", \"status\": ").append(LoadMetrics.quote(result.error == null ? "SUCCESS" : "FAILED"))
+                    .append(", \"rowsRead\": ").append(result.rowsRead())
+                    .append(", \"rowsInserted\": ").append(result.rowsInserted())
+                    .append(", \"rowsRejected\": ").append(result.rowsRejected())
+                    .append(", \"error\": ").append(LoadMetrics.quote(result.error))
+                    .append('}');
+        }
+
+        StringBuilder json = new StringBuilder("{\n");
+        LoadMetrics.appendField(json, "table", LoadMetrics.quote(tableName));
+        LoadMetrics.appendField(json, "status", LoadMetrics.quote(failed == 0 ? "SUCCESS" : "FAILED"));
+        LoadMetrics.appendField(json, "start", LoadMetrics.quote(startTimestamp));
+        LoadMetrics.appendField(json, "end", LoadMetrics.quote(DateUtils.getCurrentTimestamp()));
+        LoadMetrics.appendField(json, "elapsedSeconds", LoadMetrics.seconds(elapsedNanos));
+        LoadMetrics.appendField(json, "files", String.valueOf(results.size()));
+        LoadMetrics.appendField(json, "filesFailed", String.valueOf(failed));
+        LoadMetrics.appendField(json, "rowsRead", String.valueOf(rowsRead));
+        LoadMetrics.appendField(json, "rowsInserted", String.valueOf(rowsInserted));
+        LoadMetrics.appendField(json, "rowsRejected", String.valueOf(rowsRejected));
+        LoadMetrics.appendField(json, "rowsPerSecond", String.format(Locale.ROOT, "%.1f", elapsedNanos > 0 ? rowsInserted * 1e9 / elapsedNanos : 0));
+        json.append("  \"fileResults\": [").append(files).append("\n  ]\n}\n");
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(path), StandardCharsets.UTF_8)) {
+            writer.write(json.toString());
+            Log.info("Resumo consolidado gravado em " + path);
+        } catch (IOException e) {
+            Log.warn("Não foi possível gravar o resumo consolidado em " + path + ": " + e.getMessage());
+        }
+    }
+
+    private static class FileResult {
+        final String csvFile;
+        final LoadMetrics metrics; // Nulo se a carga falhou antes de começar
+        final String error;
+
+        FileResult(String csvFile, LoadMetrics metrics, String error) {
+            this.csvFile = csvFile;
+            this.metrics = metrics;
+            this.error = error;
+        }
+
+        long rowsRead() {
+            return metrics != null ? metrics.getRowsRead() : 0;
+        }
+
+        long rowsInserted() {
+            return metrics != null ? metrics.getRowsInserted() : 0;
+        }
+
+        long rowsRejected() {
+            return metrics != null ? metrics.getRowsRejected() : 0;
+        }
+    }
+}
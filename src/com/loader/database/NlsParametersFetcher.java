@@ -1,39 +1,65 @@
-package com.loader.database;
-
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.util.HashMap;
-import java.util.Map;
-
-public class NlsParametersFetcher {
-    private final ConnectionManager connectionManager;
-
-    public NlsParametersFetcher(ConnectionManager connectionManager) {
-        this.connectionManager = connectionManager;
-    }
-
-    public Map<String, String> fetchNlsParameters() {
-        Map<String, String> nlsParameters = new HashMap<>();
-        String sql = "SELECT PARAMETER, VALUE FROM NLS_SESSION_PARAMETERS";
-
-        try (Connection conn = connectionManager.openConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-
-            while (rs.next()) {
-                String parameter = rs.getString("PARAMETER");
-                String value = rs.getString("VALUE");
-                nlsParameters.put(parameter, value);
-                /**/System.out.println("NLS Parameter: " + parameter + ", Value: " + value); // Log dos parmetros NLS
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return nlsParameters;
-    }
-    
-    public String getNLSCharset() {
-        return fetchNlsParameters().getOrDefault("NLS_CHARACTERSET", "WE8ISO8859P1"); // Valor padro WE8ISO8859P1
-    }
-}
+package com.loader.database;
+
+import com.loader.util.Log;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class NlsParametersFetcher {
+    private final ConnectionManager connectionManager;
+    private final MetadataCache metadataCache; // Nulo sem cache em disco
+    private Map<String, String> nlsParameters; // Consultados uma única vez por execução
+
+    public NlsParametersFetcher(ConnectionManager connectionManager) {
+        this(connectionManager, null);
+    }
+
+    public NlsParametersFetcher(ConnectionManager connectionManager, MetadataCache metadataCache) {
+        this.connectionManager = connectionManager;
+        this.metadataCache = metadataCache;
+    }
+
+    public synchronized Map<String, String> fetchNlsParameters() {
+        if (nlsParameters == null && metadataCache != null) {
+            nlsParameters = metadataCache.loadNlsParameters();
+        }
+        if (nlsParameters == null) {
+            Map<String, String> fetched = queryNlsParameters();
+            if (fetched.isEmpty()) {
+                return fetched; // Falha na consulta: tenta de novo na próxima chamada
+            }
+            if (metadataCache != null) {
+                metadataCache.saveNlsParameters(fetched);
+            }
+            nlsParameters = Collections.unmodifiableMap(fetched);
+        }
+        return nlsParameters;
+    }
+
+    private Map<String, String> queryNlsParameters() {
+        Map<String, String> nlsParameters = new HashMap<>();
+        String sql = "SELECT PARAMETER, VALUE FROM NLS_SESSION_PARAMETERS";
+
+        try (Connection conn = connectionManager.openConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                String parameter = rs.getString("PARAMETER");
+                String value = rs.getString("VALUE");
+                nlsParameters.put(parameter, value);
+                Log.debug("NLS Parameter: " + parameter + ", Value: " + value); // Log dos parâmetros NLS
+            }
+        } catch (Exception e) {
+            Log.error("Falha ao consultar os parâmetros NLS", e);
+        }
+        return nlsParameters;
+    }
+    
+    public String getNLSCharset() {
+        return fetchNlsParameters().getOrDefault("NLS_CHARACTERSET", "WE8ISO8859P1"); // Valor padrão WE8ISO8859P1
+    }
+}
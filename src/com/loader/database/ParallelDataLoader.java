@@ -0,0 +1,248 @@
+package com.loader.database;
+
+import com.loader.csv.CSVParser;
+import com.loader.csv.ColumnarBatch;
+import com.loader.util.Log;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Carga paralela: a thread chamadora lê lotes do CSVParser e os coloca numa fila limitada,
+ * enquanto N workers, cada um com a sua própria conexão, executam os lotes concorrentemente.
+ * Os lotes executados voltam a uma fila de lotes livres, de onde o leitor os reaproveita.
+ *
+ * Em PER_WORKER cada worker faz commits intermediários a cada COMMIT_INTERVAL lotes, e a falha de
+ * um worker desfaz só o trabalho dele desde o último commit: os demais continuam consumindo a fila.
+ * A carga só para antes do fim do arquivo se todos os workers falharem, se o leitor falhar ou se
+ * MAX_ERRORS for excedido.
+ */
+public class ParallelDataLoader {
+    private final DataLoader dataLoader;
+    private final int loadThreads;
+    private final CommitMode commitMode;
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private volatile boolean readerDone;
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+
+    public ParallelDataLoader(DataLoader dataLoader, int loadThreads, CommitMode commitMode) {
+        this.dataLoader = dataLoader;
+        this.loadThreads = loadThreads;
+        this.commitMode = commitMode;
+    }
+
+    public void loadData(CSVParser parser) throws IOException, SQLException {
+        String insertSql = dataLoader.generateInsertSql();
+        BlockingQueue<ColumnarBatch> queue = new ArrayBlockingQueue<>(loadThreads * 2);
+        // Um lote em cada posição da fila, um por worker e o que está sendo lido
+        BlockingQueue<ColumnarBatch> free = dataLoader.newBatchPool(loadThreads * 3 + 1);
+        List<Worker> workers = new ArrayList<>();
+        long startTime = System.nanoTime();
+        if (commitMode == CommitMode.ALL_OR_NOTHING && dataLoader.getCommitInterval() > 0) {
+            Log.warn("commits intermediários desfariam o ALL_OR_NOTHING; COMMIT_INTERVAL=" + dataLoader.getCommitInterval()
+                    + " ignorado, cada worker confirma só no fim da carga.");
+        }
+
+        try {
+            try {
+                for (int i = 0; i < loadThreads; i++) {
+                    Worker worker = new Worker(i + 1, queue, free, dataLoader.getConnectionManager().openConnection(), insertSql);
+                    workers.add(worker);
+                    activeWorkers.incrementAndGet();
+                    worker.start();
+                }
+                Log.info("Carga paralela iniciada com " + loadThreads + " workers (commit: " + commitMode + ").");
+
+                // Leitor: alimenta a fila até o fim do arquivo ou até a carga falhar
+                ColumnarBatch batch;
+                while ((batch = takeFree(free)) != null) {
+                    long parseStart = System.nanoTime();
+                    parser.fillBatch(batch, dataLoader.getBatchSize());
+                    dataLoader.getMetrics().recordParse(batch.size(), System.nanoTime() - parseStart, parser.getPosition());
+                    dataLoader.getMetrics().recordRejected(batch.getRejected());
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    enqueue(queue, batch);
+                }
+            } catch (IOException | SQLException | RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                readerDone = true;
+                joinWorkers(workers);
+            }
+
+            finishTransactions(workers);
+            printReport(workers, System.nanoTime() - startTime);
+            for (Worker worker : workers) {
+                if (worker.error != null) {
+                    failure.compareAndSet(null, worker.error); // Em PER_WORKER a carga termina, mas com erro
+                }
+            }
+        } finally {
+            parser.closeResources();
+        }
+
+        Exception error = failure.get();
+        if (error instanceof SQLException) {
+            dataLoader.logSqlError((SQLException) error);
+        } else if (error instanceof IOException) {
+            throw (IOException) error;
+        } else if (error != null) {
+            throw new IllegalStateException("Falha na carga paralela", error);
+        }
+    }
+
+    // Próximo lote livre, ou nulo se a carga falhar enquanto todos estão em uso
+    private ColumnarBatch takeFree(BlockingQueue<ColumnarBatch> free) {
+        try {
+            while (failure.get() == null) {
+                ColumnarBatch batch = free.poll(100, TimeUnit.MILLISECONDS);
+                if (batch != null) {
+                    return batch;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        }
+        return null;
+    }
+
+    private void enqueue(BlockingQueue<ColumnarBatch> queue, ColumnarBatch batch) {
+        try {
+            while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) {
+                    return; // Workers podem ter parado de consumir; o lote é descartado
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private void joinWorkers(List<Worker> workers) {
+        for (Worker worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    private void finishTransactions(List<Worker> workers) throws SQLException {
+        boolean commitAll = commitMode == CommitMode.ALL_OR_NOTHING && failure.get() == null;
+        for (Worker worker : workers) {
+            try (Connection conn = worker.conn) {
+                if (commitAll || (commitMode == CommitMode.PER_WORKER && worker.error == null)) {
+                    // Em ALL_OR_NOTHING os commits são sequenciais entre sessões distintas;
+                    // uma falha nesta fase ainda pode deixar parte dos workers confirmada.
+                    conn.commit();
+                    worker.committed = true;
+                } else {
+                    conn.rollback();
+                    if (commitMode == CommitMode.PER_WORKER) {
+                        // Só os commits intermediários do worker ficam na tabela
+                        dataLoader.getMetrics().recordRolledBack(worker.rows - worker.rowsCommitted);
+                    }
+                }
+            }
+        }
+    }
+
+    private void printReport(List<Worker> workers, long elapsedNanos) {
+        long totalRows = 0;
+        for (Worker worker : workers) {
+            // Em PER_WORKER, de um worker desfeito contam só as linhas dos commits intermediários
+            totalRows += worker.committed || commitMode != CommitMode.PER_WORKER ? worker.rows : worker.rowsCommitted;
+            Log.info(String.format("Worker %d: %d linhas em %d lotes, %.1f s, %.0f linhas/s%s",
+                    worker.id, worker.rows, worker.batches, worker.busyNanos / 1e9,
+                    rate(worker.rows, worker.busyNanos),
+                    worker.committed ? "" : worker.rowsCommitted > 0
+                            ? " (desfeito após " + worker.rowsCommitted + " linhas confirmadas)" : " (desfeito)"));
+        }
+        Log.info(String.format("Total de %d linhas processadas por %d workers em %.1f s (%.0f linhas/s).",
+                totalRows, workers.size(), elapsedNanos / 1e9, rate(totalRows, elapsedNanos)));
+    }
+
+    private static double rate(long rows, long nanos) {
+        return nanos > 0 ? rows * 1e9 / nanos : 0;
+    }
+
+    private class Worker extends Thread {
+        private final int id;
+        private final BlockingQueue<ColumnarBatch> queue;
+        private final BlockingQueue<ColumnarBatch> free;
+        private final Connection conn;
+        private final String insertSql;
+        private volatile long rows;
+        private volatile long batches;
+        private volatile long busyNanos;
+        private volatile long rowsCommitted; // Linhas confirmadas nos commits intermediários
+        private volatile Exception error;
+        private boolean committed;
+
+        Worker(int id, BlockingQueue<ColumnarBatch> queue, BlockingQueue<ColumnarBatch> free, Connection conn, String insertSql) {
+            super("loader-worker-" + id);
+            this.id = id;
+            this.queue = queue;
+            this.free = free;
+            this.conn = conn;
+            this.insertSql = insertSql;
+        }
+
+        @Override
+        public void run() {
+            int commitInterval = commitMode == CommitMode.PER_WORKER ? dataLoader.getCommitInterval() : 0;
+            int batchesSinceCommit = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement(insertSql)) {
+                while (true) {
+                    ColumnarBatch batch = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (batch == null) {
+                        if (readerDone && queue.isEmpty()) {
+                            break;
+                        }
+                        continue;
+                    }
+                    try {
+                        if (failure.get() != null && commitMode == CommitMode.ALL_OR_NOTHING) {
+                            continue; // A carga será desfeita; apenas drena a fila até o fim
+                        }
+                        long start = System.nanoTime();
+                        rows += dataLoader.executeBatch(pstmt, batch);
+                        if (commitInterval > 0 && ++batchesSinceCommit >= commitInterval) {
+                            conn.commit();
+                            rowsCommitted = rows;
+                            batchesSinceCommit = 0;
+                        }
+                        busyNanos += System.nanoTime() - start;
+                        batches++;
+                    } finally {
+                        free.offer(batch); // Devolve o lote ao leitor
+                    }
+                }
+            } catch (Exception e) {
+                error = e;
+                // Em PER_WORKER os demais workers seguem com a fila; a carga para se este era o último
+                // ou se o limite de rejeitados foi excedido
+                if (activeWorkers.decrementAndGet() == 0 || commitMode == CommitMode.ALL_OR_NOTHING
+                        || dataLoader.isRejectLimitExceeded()) {
+                    failure.compareAndSet(null, e);
+                } else {
+                    Log.error("Worker " + id + " interrompido (" + e.getMessage() + "); os demais workers continuam a carga.");
+                }
+            }
+        }
+    }
+}
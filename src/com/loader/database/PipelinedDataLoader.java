@@ -0,0 +1,219 @@
+package com.loader.database;
+
+import com.loader.csv.CSVParser;
+import com.loader.csv.ColumnarBatch;
+import com.loader.util.Log;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Carga em pipeline: uma thread de preparo lê, converte e valida o próximo lote enquanto a thread
+ * chamadora executa o lote corrente no banco. Entre os dois estágios há um buffer circular limitado
+ * (ArrayBlockingQueue), que segura o preparo quando o banco fica para trás. Os lotes executados
+ * voltam ao preparo por uma segunda fila e são reaproveitados até o fim da carga.
+ *
+ * Ao final são exibidos os tempos de cada estágio, incluindo o tempo de espera de um pelo outro,
+ * para indicar se a carga foi limitada pelo parse ou pelo banco.
+ */
+public class PipelinedDataLoader {
+    // Lote vazio que sinaliza o fim do arquivo
+    private static final ColumnarBatch END_OF_DATA = new ColumnarBatch(0, 0);
+
+    private final DataLoader dataLoader;
+    private final int pipelineDepth;
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+    // Tempos do estágio de preparo
+    private volatile long parseNanos;
+    private volatile long convertNanos;
+    private volatile long producerWaitNanos;
+    private volatile long rejectedRows;
+    // Tempos do estágio de execução
+    private long executeNanos;
+    private long consumerWaitNanos;
+
+    public PipelinedDataLoader(DataLoader dataLoader, int pipelineDepth) {
+        this.dataLoader = dataLoader;
+        this.pipelineDepth = pipelineDepth;
+    }
+
+    public void loadData(CSVParser parser) throws IOException, SQLException {
+        BlockingQueue<ColumnarBatch> queue = new ArrayBlockingQueue<>(pipelineDepth);
+        // Os lotes da fila, o que está sendo preparado e o que está sendo executado
+        BlockingQueue<ColumnarBatch> free = dataLoader.newBatchPool(pipelineDepth + 2);
+        Thread producer = new Thread(() -> prepareBatches(parser, queue, free), "loader-pipeline-parser");
+        LoadCheckpoint checkpoint = dataLoader.openCheckpoint(parser);
+        long resumedRows = checkpoint != null ? checkpoint.getRowsCommitted() : 0;
+        long processedRows = 0;
+        int commitInterval = dataLoader.getCommitInterval();
+        int batchesSinceCommit = 0;
+        long startTime = System.nanoTime();
+
+        Connection conn = null;
+        try {
+            conn = dataLoader.getConnectionManager().openConnection();
+            PreparedStatement pstmt = conn.prepareStatement(dataLoader.generateInsertSql());
+            Log.info("Carga em pipeline iniciada (profundidade: " + pipelineDepth + " lotes).");
+            producer.start();
+
+            while (true) {
+                long waitStart = System.nanoTime();
+                ColumnarBatch prepared = take(queue);
+                consumerWaitNanos += System.nanoTime() - waitStart;
+                if (prepared == END_OF_DATA || prepared == null) {
+                    break;
+                }
+
+                long executeStart = System.nanoTime();
+                processedRows += dataLoader.executeBatch(pstmt, prepared);
+                executeNanos += System.nanoTime() - executeStart;
+                if (commitInterval > 0 && ++batchesSinceCommit >= commitInterval) {
+                    // A posição vem do lote, não do parser, que já está lotes à frente
+                    dataLoader.commitCheckpoint(conn, checkpoint, prepared.getPosition(), prepared.getRecordsRead(), resumedRows + processedRows);
+                    batchesSinceCommit = 0;
+                }
+                free.offer(prepared);
+            }
+
+            Exception error = failure.get();
+            if (error instanceof IOException) {
+                throw (IOException) error;
+            } else if (error instanceof SQLException) {
+                throw (SQLException) error;
+            } else if (error != null) {
+                throw new IllegalStateException("Falha no preparo dos lotes", error);
+            }
+
+            conn.commit(); // Commit só acontece se todas as linhas forem processadas sem erro
+            dataLoader.finishCheckpoint(checkpoint);
+            Log.info("Total de " + processedRows + " linhas inseridas com sucesso.");
+        } catch (SQLException e) {
+            failure.compareAndSet(null, e);
+            if (conn != null) {
+                conn.rollback(); // Rollback em qualquer exceção
+            }
+            dataLoader.logSqlError(e);
+            dataLoader.reportCheckpoint(checkpoint);
+        } catch (IOException e) {
+            // Falha de leitura (ex.: gzip truncado): desfaz o que passou do último checkpoint e informa onde retomar
+            failure.compareAndSet(null, e);
+            if (conn != null) {
+                conn.rollback();
+            }
+            dataLoader.reportCheckpoint(checkpoint);
+            throw e;
+        } finally {
+            failure.compareAndSet(null, new IllegalStateException("Carga interrompida")); // Libera o preparo, se ainda ativo
+            joinProducer(producer);
+            if (conn != null) {
+                conn.close(); // Fecha a conexão no bloco finally
+            }
+            parser.closeResources(); // Fecha os recursos do parser
+            printStageTimings(processedRows, System.nanoTime() - startTime);
+        }
+    }
+
+    // Estágio de preparo: lê, valida e converte os lotes e os entrega ao estágio de execução
+    private void prepareBatches(CSVParser parser, BlockingQueue<ColumnarBatch> queue, BlockingQueue<ColumnarBatch> free) {
+        RowBinder rowBinder = dataLoader.getRowBinder();
+        LoadMetrics metrics = dataLoader.getMetrics();
+        try {
+            while (failure.get() == null) {
+                long waitStart = System.nanoTime();
+                ColumnarBatch batch = takeFree(free);
+                long parseStart = System.nanoTime();
+                producerWaitNanos += parseStart - waitStart;
+                if (batch == null) {
+                    break;
+                }
+                // Linhas com quantidade de campos diferente da tabela vão para o .bad no preenchimento
+                parser.fillBatch(batch, dataLoader.getBatchSize());
+                long convertStart = System.nanoTime();
+                parseNanos += convertStart - parseStart;
+                metrics.recordParse(batch.size(), convertStart - parseStart, batch.getPosition());
+                rejectedRows += batch.getRejected();
+                metrics.recordRejected(batch.getRejected());
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                rowBinder.convertBatch(batch);
+                long offerStart = System.nanoTime();
+                convertNanos += offerStart - convertStart;
+                metrics.recordConvert(offerStart - convertStart);
+                put(queue, batch);
+                producerWaitNanos += System.nanoTime() - offerStart;
+            }
+        } catch (IOException | RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            put(queue, END_OF_DATA);
+        }
+    }
+
+    // Próximo lote devolvido pelo estágio de execução, ou nulo se a carga for interrompida
+    private ColumnarBatch takeFree(BlockingQueue<ColumnarBatch> free) {
+        try {
+            while (failure.get() == null) {
+                ColumnarBatch batch = free.poll(100, TimeUnit.MILLISECONDS);
+                if (batch != null) {
+                    return batch;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        }
+        return null;
+    }
+
+    private void put(BlockingQueue<ColumnarBatch> queue, ColumnarBatch batch) {
+        try {
+            while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) {
+                    if (batch != END_OF_DATA) {
+                        return; // O estágio de execução parou; o lote é descartado
+                    }
+                    queue.clear(); // Abre espaço para o marcador de fim
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private ColumnarBatch take(BlockingQueue<ColumnarBatch> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+            return null;
+        }
+    }
+
+    private void joinProducer(Thread producer) {
+        try {
+            producer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void printStageTimings(long processedRows, long elapsedNanos) {
+        Log.info(String.format("Estágio de preparo: parse %.1f s, conversão %.1f s, aguardando o banco %.1f s, %d linhas rejeitadas",
+                parseNanos / 1e9, convertNanos / 1e9, producerWaitNanos / 1e9, rejectedRows));
+        Log.info(String.format("Estágio de execução: executeBatch %.1f s, aguardando o preparo %.1f s",
+                executeNanos / 1e9, consumerWaitNanos / 1e9));
+        String bound = consumerWaitNanos > producerWaitNanos ? "limitada pelo parse/conversão" : "limitada pelo banco de dados";
+        Log.info(String.format("Carga %s: %d linhas em %.1f s (%.0f linhas/s).",
+                bound, processedRows, elapsedNanos / 1e9, elapsedNanos > 0 ? processedRows * 1e9 / elapsedNanos : 0));
+    }
+}
@@ -0,0 +1,106 @@
+package com.loader.database;
+
+import com.loader.csv.ColumnarBatch;
+import com.loader.util.ColumnConverter;
+import com.loader.util.DataFormatter;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Converte e vincula as linhas do CSV ao PreparedStatement. Conversores e tipos SQL de cada coluna
+ * são resolvidos uma única vez na criação. A conversão ({@link #convertBatch}) e o vínculo
+ * ({@link #bindRow}) são separados para que possam rodar em threads diferentes.
+ */
+public class RowBinder {
+    private final ColumnConverter[] converters;
+    private final String[] columnNames;
+    private final int[] sqlTypes;
+    private final BindMode bindMode;
+
+    public RowBinder(List<TableMetadata.ColumnMetadata> columns, DataFormatter dataFormatter, BindMode bindMode) {
+        this.converters = new ColumnConverter[columns.size()];
+        this.sqlTypes = new int[columns.size()];
+        this.columnNames = new String[columns.size()];
+        this.bindMode = bindMode;
+        for (int i = 0; i < converters.length; i++) {
+            converters[i] = dataFormatter.converterFor(columns.get(i).getType());
+            sqlTypes[i] = columns.get(i).getSqlType();
+            columnNames[i] = columns.get(i).getName();
+        }
+    }
+
+    public void bind(PreparedStatement pstmt, int column, Object value) throws SQLException {
+        int index = column + 1;
+        if (value == null) {
+            if (bindMode == BindMode.TYPED) {
+                pstmt.setNull(index, sqlTypes[column]);
+            } else {
+                pstmt.setString(index, null);
+            }
+        } else if (value instanceof String) {
+            pstmt.setString(index, (String) value);
+        } else if (value instanceof Long) {
+            pstmt.setLong(index, (Long) value);
+        } else if (value instanceof BigDecimal) {
+            pstmt.setBigDecimal(index, (BigDecimal) value);
+        } else if (value instanceof Timestamp) {
+            pstmt.setTimestamp(index, (Timestamp) value);
+        } else {
+            pstmt.setObject(index, value);
+        }
+    }
+
+    /**
+     * Converte os textos do lote coluna a coluna, gravando os valores ao lado deles no próprio lote.
+     * Um número inválido não interrompe o lote: a linha é marcada com o motivo
+     * ({@link ColumnarBatch#setFailed}) para ser rejeitada antes do vínculo.
+     */
+    public void convertBatch(ColumnarBatch batch) {
+        int rows = batch.size();
+        for (int c = 0; c < converters.length; c++) {
+            ColumnConverter converter = converters[c];
+            ColumnarBatch.Column column = batch.getColumn(c);
+            for (int row = 0; row < rows; row++) {
+                try {
+                    if (bindMode == BindMode.TYPED) {
+                        converter.parseInto(column.getText(row), column, row);
+                    } else {
+                        String value = converter.format(column.getText(row));
+                        if (value == null) {
+                            column.setNull(row);
+                        } else {
+                            column.setObject(row, value);
+                        }
+                    }
+                } catch (NumberFormatException e) {
+                    column.setNull(row);
+                    batch.setFailed(row, "Número inválido na coluna " + columnNames[c] + ": '" + column.getText(row) + "'");
+                }
+            }
+        }
+        batch.setConverted(true);
+    }
+
+    // Vincula uma linha de um lote já convertido
+    public void bindRow(PreparedStatement pstmt, ColumnarBatch batch, int row) throws SQLException {
+        for (int c = 0; c < converters.length; c++) {
+            ColumnarBatch.Column column = batch.getColumn(c);
+            if (column.isLong(row)) {
+                pstmt.setLong(c + 1, column.getLong(row));
+            } else {
+                bind(pstmt, c, column.getObject(row));
+            }
+        }
+    }
+
+    public int getColumnCount() {
+        return converters.length;
+    }
+
+    public BindMode getBindMode() {
+        return bindMode;
+    }
+}
@@ -0,0 +1,14 @@
+package com.loader.database;
+
+/**
+ * Conferência da quantidade de linhas gravadas, selecionada pelo parâmetro ROW_COUNT_VERIFICATION.
+ * A contabilidade da carga vem sempre dos contadores do próprio loader; a conferência é opcional.
+ */
+public enum RowCountVerification {
+    /** Sem consulta à tabela. */
+    NONE,
+    /** COUNT(*) da tabela inteira antes e depois da carga (varredura completa). */
+    FULL,
+    /** COUNT(*) apenas das linhas com LOAD_MARKER_COLUMN = LOAD_MARKER_VALUE, idealmente indexada. */
+    MARKER
+}
@@ -1,74 +1,194 @@
-package com.loader.database;
-
-import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
-
-public class TableMetadata {
-    private final ConnectionManager connectionManager;
-    private final String schema; // Esquema ou owner da tabela
-    private final String tableName; // Nome da tabela
-    private List<ColumnMetadata> columns;
-
-    public TableMetadata(ConnectionManager connectionManager, String fullTableName) {
-        this.connectionManager = connectionManager;
-        String[] parts = fullTableName.split("\\.", 2);
-        this.schema = parts.length > 1 ? parts[0].toUpperCase() : null;
-        this.tableName = parts[parts.length - 1].toUpperCase();
-        this.columns = new ArrayList<>();
-        loadColumnMetadata();
-    }
-
-    private void loadColumnMetadata() {
-        try (Connection conn = connectionManager.openConnection();
-             ResultSet rs = conn.getMetaData().getColumns(null, schema, tableName, null)) {
-            if (!rs.next()) {
-                System.err.println("Nenhum metadado encontrado para a tabela: " + schema + "." + tableName);
-                return;
-            }
-
-            do {
-                String columnName = rs.getString("COLUMN_NAME");
-                String columnType = rs.getString("TYPE_NAME");
-                columns.add(new ColumnMetadata(columnName, columnType));
-                System.out.println("Coluna carregada: " + columnName + ", Tipo: " + columnType);
-            } while (rs.next());
-        } catch (SQLException e) {
-            System.err.println("Erro de SQL: " + e.getMessage());
-            System.err.println("Cdigo SQLState: " + e.getSQLState());
-            System.err.println("Cdigo de erro do banco de dados: " + e.getErrorCode());
-	        System.err.println("Erro ao carregar metadados da coluna para a tabela: " + schema + "." + tableName);
-        }
-    }
-
-    public List<ColumnMetadata> getColumns() {
-        return columns;
-    }
-
-    public String getTableName() {
-        return tableName;
-    }
-
-    public String getSchema() {
-        return schema;
-    }
-
-    public static class ColumnMetadata {
-        private final String name;
-        private final String type;
-
-        public ColumnMetadata(String name, String type) {
-            this.name = name;
-            this.type = type;
-        }
-
-        public String getName() {
-            return name;
-        }
-
-        public String getType() {
-            return type;
-        }
-    }
-}
-
+package com.loader.database;
+
+import com.loader.util.Log;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TableMetadata {
+    private final ConnectionManager connectionManager;
+    private final String schema; // Esquema ou owner da tabela
+    private final String tableName; // Nome da tabela
+    private final MetadataCache metadataCache; // Nulo sem cache em disco
+    private List<ColumnMetadata> columns;
+    private List<String> primaryKeyColumns; // Carregada só quando pedida (UPSERT)
+
+    public TableMetadata(ConnectionManager connectionManager, String fullTableName) {
+        this(connectionManager, fullTableName, null);
+    }
+
+    public TableMetadata(ConnectionManager connectionManager, String fullTableName, MetadataCache metadataCache) {
+        this.connectionManager = connectionManager;
+        this.metadataCache = metadataCache;
+        String[] parts = fullTableName.split("\\.", 2);
+        this.schema = parts.length > 1 ? parts[0].toUpperCase() : null;
+        this.tableName = parts[parts.length - 1].toUpperCase();
+        this.columns = new ArrayList<>();
+        loadColumnMetadata();
+    }
+
+    // Cópia restrita a parte das colunas, sem nova consulta ao dicionário de dados
+    private TableMetadata(TableMetadata source, List<ColumnMetadata> columns) {
+        this.connectionManager = source.connectionManager;
+        this.metadataCache = source.metadataCache;
+        this.schema = source.schema;
+        this.tableName = source.tableName;
+        this.columns = columns;
+    }
+
+    /**
+     * Mesma tabela, carregando apenas as colunas informadas, na ordem informada (ex.: as colunas
+     * presentes no cabeçalho do CSV). Os comandos de carga passam a listar só essas colunas.
+     */
+    public TableMetadata withColumns(List<String> columnNames) {
+        List<ColumnMetadata> selected = new ArrayList<>(columnNames.size());
+        for (String columnName : columnNames) {
+            ColumnMetadata match = null;
+            for (ColumnMetadata column : columns) {
+                if (column.getName().equalsIgnoreCase(columnName)) {
+                    match = column;
+                    break;
+                }
+            }
+            if (match == null) {
+                throw new IllegalArgumentException("Coluna " + columnName + " não existe na tabela " + getQualifiedName() + ".");
+            }
+            selected.add(match);
+        }
+        return new TableMetadata(this, selected);
+    }
+
+    private void loadColumnMetadata() {
+        long lastDdlTime = -1;
+        if (metadataCache != null) {
+            // O snapshot só vale para a mesma versão da tabela
+            lastDdlTime = fetchLastDdlTime();
+            List<ColumnMetadata> cached = lastDdlTime >= 0 ? metadataCache.loadColumns(getQualifiedName(), lastDdlTime) : null;
+            if (cached != null && !cached.isEmpty()) {
+                columns.addAll(cached);
+                return;
+            }
+        }
+
+        try (Connection conn = connectionManager.openConnection();
+             ResultSet rs = conn.getMetaData().getColumns(null, schema, tableName, null)) {
+            if (!rs.next()) {
+                Log.error("Nenhum metadado encontrado para a tabela: " + schema + "." + tableName);
+                return;
+            }
+
+            do {
+                String columnName = rs.getString("COLUMN_NAME");
+                String columnType = rs.getString("TYPE_NAME");
+                int sqlType = rs.getInt("DATA_TYPE");
+                columns.add(new ColumnMetadata(columnName, columnType, sqlType));
+                Log.debug("Coluna carregada: " + columnName + ", Tipo: " + columnType);
+            } while (rs.next());
+            if (lastDdlTime >= 0) {
+                metadataCache.saveColumns(getQualifiedName(), lastDdlTime, columns);
+            }
+        } catch (SQLException e) {
+            Log.error("Erro de SQL: " + e.getMessage());
+            Log.error("Código SQLState: " + e.getSQLState());
+            Log.error("Código de erro do banco de dados: " + e.getErrorCode());
+	        Log.error("Erro ao carregar metadados da coluna para a tabela: " + schema + "." + tableName);
+        }
+    }
+
+    private List<String> loadPrimaryKeyColumns() {
+        // getPrimaryKeys ordena por nome da coluna; a ordem da chave vem de KEY_SEQ
+        List<String> keyColumns = new ArrayList<>();
+        List<Integer> keySequence = new ArrayList<>();
+        try (Connection conn = connectionManager.openConnection();
+             ResultSet rs = conn.getMetaData().getPrimaryKeys(null, schema, tableName)) {
+            while (rs.next()) {
+                int sequence = rs.getShort("KEY_SEQ");
+                int index = 0;
+                while (index < keySequence.size() && keySequence.get(index) < sequence) {
+                    index++;
+                }
+                keySequence.add(index, sequence);
+                keyColumns.add(index, rs.getString("COLUMN_NAME"));
+            }
+        } catch (SQLException e) {
+            Log.error("Erro de SQL: " + e.getMessage());
+            Log.error("Erro ao carregar a chave primária da tabela: " + getQualifiedName());
+        }
+        return keyColumns;
+    }
+
+    // LAST_DDL_TIME da tabela em milissegundos, ou -1 se não for possível consultá-lo
+    private long fetchLastDdlTime() {
+        String sql = "SELECT LAST_DDL_TIME FROM ALL_OBJECTS WHERE OWNER = NVL(?, USER) AND OBJECT_NAME = ? AND OBJECT_TYPE = 'TABLE'";
+        try (Connection conn = connectionManager.openConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, schema);
+            pstmt.setString(2, tableName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    Timestamp lastDdlTime = rs.getTimestamp(1);
+                    return lastDdlTime != null ? lastDdlTime.getTime() : -1;
+                }
+            }
+        } catch (SQLException e) {
+            Log.debug("LAST_DDL_TIME indisponível, cache de metadados ignorado: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    public List<ColumnMetadata> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Colunas da chave primária na ordem da chave, ou lista vazia se a tabela não tiver uma.
+     */
+    public synchronized List<String> getPrimaryKeyColumns() {
+        if (primaryKeyColumns == null) {
+            primaryKeyColumns = loadPrimaryKeyColumns();
+        }
+        return primaryKeyColumns;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+
+    // Nome da tabela qualificado pelo esquema, quando informado
+    public String getQualifiedName() {
+        return schema != null && !schema.isEmpty() ? schema + "." + tableName : tableName;
+    }
+
+    public static class ColumnMetadata {
+        private final String name;
+        private final String type;
+        private final int sqlType; // java.sql.Types, usado no vínculo tipado e em setNull
+
+        public ColumnMetadata(String name, String type) {
+            this(name, type, Types.VARCHAR);
+        }
+
+        public ColumnMetadata(String name, String type, int sqlType) {
+            this.name = name;
+            this.type = type;
+            this.sqlType = sqlType;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public int getSqlType() {
+            return sqlType;
+        }
+    }
+}
+
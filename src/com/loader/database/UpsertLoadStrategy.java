@@ -0,0 +1,100 @@
+package com.loader.database;
+
+import com.loader.util.Log;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * MERGE linha a linha, em lotes: a linha do CSV entra como uma consulta de uma linha sobre a DUAL e
+ * é comparada com a tabela pelas colunas-chave. Se a chave existe, as demais colunas são atualizadas;
+ * senão a linha é inserida. Dispensa a carga numa tabela de staging seguida de um MERGE à parte.
+ *
+ * As colunas-chave são as de UPSERT_KEYS ou, se não informadas, as da chave primária da tabela.
+ * Cada execução tem uma única linha de origem, então chaves repetidas no arquivo não causam erro: a
+ * última ocorrência prevalece. Reaplicar um trecho (ex.: retomada por checkpoint) não duplica linhas.
+ */
+public class UpsertLoadStrategy implements LoadStrategy {
+    private final List<String> configuredKeys;
+
+    // 'keyColumns' vazio usa a chave primária da tabela
+    public UpsertLoadStrategy(List<String> keyColumns) {
+        this.configuredKeys = keyColumns;
+    }
+
+    @Override
+    public String buildStatementSql(TableMetadata tableMetadata) {
+        List<String> keys = resolveKeyColumns(tableMetadata);
+        StringJoiner source = new StringJoiner(", ", "SELECT ", " FROM DUAL");
+        StringJoiner match = new StringJoiner(" AND ");
+        StringJoiner update = new StringJoiner(", ");
+        StringJoiner insertColumns = new StringJoiner(", ");
+        StringJoiner insertValues = new StringJoiner(", ");
+        for (TableMetadata.ColumnMetadata column : tableMetadata.getColumns()) {
+            String name = column.getName();
+            source.add("? AS " + name);
+            if (keys.contains(name)) {
+                match.add("t." + name + " = s." + name);
+            } else {
+                update.add("t." + name + " = s." + name);
+            }
+            insertColumns.add(name);
+            insertValues.add("s." + name);
+        }
+
+        StringBuilder sql = new StringBuilder("MERGE INTO ");
+        sql.append(tableMetadata.getQualifiedName()).append(" t USING (").append(source).append(") s ON (").append(match).append(')');
+        // Tabela só com colunas-chave: não há o que atualizar
+        if (update.length() > 0) {
+            sql.append(" WHEN MATCHED THEN UPDATE SET ").append(update);
+        }
+        sql.append(" WHEN NOT MATCHED THEN INSERT (").append(insertColumns).append(") VALUES (").append(insertValues).append(')');
+        return sql.toString();
+    }
+
+    // Colunas-chave com os nomes do dicionário de dados; falha se não houver chave ou se uma coluna não existir
+    List<String> resolveKeyColumns(TableMetadata tableMetadata) {
+        List<String> requested = configuredKeys.isEmpty() ? tableMetadata.getPrimaryKeyColumns() : configuredKeys;
+        if (requested.isEmpty()) {
+            throw new IllegalStateException("LOAD_METHOD=UPSERT: a tabela " + tableMetadata.getQualifiedName()
+                    + " não tem chave primária; informe as colunas-chave em UPSERT_KEYS.");
+        }
+        List<String> keys = new ArrayList<>();
+        for (String key : requested) {
+            String name = null;
+            for (TableMetadata.ColumnMetadata column : tableMetadata.getColumns()) {
+                if (column.getName().equalsIgnoreCase(key.trim())) {
+                    name = column.getName();
+                    break;
+                }
+            }
+            if (name == null) {
+                throw new IllegalArgumentException("LOAD_METHOD=UPSERT: coluna-chave " + key + " não existe na tabela " + tableMetadata.getQualifiedName() + ".");
+            }
+            keys.add(name);
+        }
+        return keys;
+    }
+
+    @Override
+    public void beforeLoad(Connection conn, TableMetadata tableMetadata) {
+        // Valida as chaves antes do primeiro lote
+        List<String> keys = resolveKeyColumns(tableMetadata);
+        Log.info("Chave do UPSERT: " + String.join(", ", keys) + (configuredKeys.isEmpty() ? " (chave primária)" : " (UPSERT_KEYS)"));
+    }
+
+    @Override
+    public void afterLoad(Connection conn, TableMetadata tableMetadata) {
+    }
+
+    @Override
+    public boolean commitsEachBatch() {
+        return false;
+    }
+
+    @Override
+    public boolean locksTable() {
+        return false;
+    }
+}
@@ -1,97 +1,277 @@
-package com.loader.main;
-
-import java.util.Map;
-
-import javax.swing.JOptionPane;
-
-import com.loader.config.ConfigurationManager;
-import com.loader.database.ConnectionManager;
-import com.loader.database.TableMetadata;
-import com.loader.csv.CSVParser;
-import com.loader.database.NlsParametersFetcher;
-import com.loader.util.DataFormatter;
-import com.loader.util.DateUtils;
-import com.loader.database.DataLoader;
-
-public class Main {
-    public static void main(String[] args) {
-        if (args.length < 1) {
-            System.out.println("Usage: java -jar loader.jar <Full path to config file>");
-            return;
-        }
-
-        String configFilePath = args[0];
-        try {
-            System.out.println(DateUtils.getCurrentTimestamp() + " - Incio de execuo.");
-            
-            ConfigurationManager configManager = new ConfigurationManager(configFilePath);
-
-            // Database connection configuration
-            String dbUser = System.getenv(configManager.getProperty("DB_USER_ENV"));
-            String dbPassword = System.getenv(configManager.getProperty("DB_PASSWORD_ENV"));
-            String dbInstance = configManager.getProperty("DB_INSTANCE");
-            String dbUrl = "jdbc:oracle:thin:@" + dbInstance;
-
-            if (dbUser == null || dbUser.trim().isEmpty()) {
-                System.err.println("Usurio da base de dados no definido nas variveis de ambiente ou parametrizado incorretamente no config.txt.");
-                System.exit(1);
-            }    
-            if (dbPassword == null || dbPassword.trim().isEmpty()) {
-                System.err.println("Senha da base de dados no definida nas variveis de ambiente ou parametrizada incorretamente no config.txt.");
-                System.exit(1);
-            }
-                       
-            System.out.println("DB User: " + dbUser);
-            System.out.println("DB Password: [PROTECTED]");
-            System.out.println("DB Instance: " + dbInstance);
-            System.out.println("DB URL: " + dbUrl);
-
-            // CSV loader configuration
-            String targetTable = configManager.getProperty("TARGET_TABLE");
-            String csvFilePath = configManager.getProperty("CSV_FILE_PATH");
-            String columnSeparator = configManager.getProperty("COLUMN_SEPARATOR");
-            String enclosureCharacter = configManager.getProperty("ENCLOSURE_CHARACTER");
-            int batchSize = Integer.parseInt(configManager.getProperty("BATCH_SIZE"));
-            String dataDetectionMode = configManager.getProperty("DATA_DETECTION_MODE");
-            String csvCharset = configManager.getProperty("CHARSET"); // L o charset do CSV do arquivo de configurao
-            
-
-            System.out.println("Target Table: " + targetTable);
-            System.out.println("CSV File Path: " + csvFilePath);
-            System.out.println("Column Separator: " + columnSeparator);
-            System.out.println("Enclosure Character: " + enclosureCharacter);
-            System.out.println("Batch Size: " + batchSize);
-            System.out.println("Data Detection Mode: " + dataDetectionMode);
-
-            // Establish database connection
-            ConnectionManager connectionManager = new ConnectionManager(dbUrl, dbUser, dbPassword);
-            
-            TableMetadata tableMetadata = new TableMetadata(connectionManager, targetTable);
-            // Fetch NLS session parameters
-            NlsParametersFetcher nlsFetcher = new NlsParametersFetcher(connectionManager);
-            Map<String, String> nlsParameters = nlsFetcher.fetchNlsParameters();
-
-            // Instantiate DataFormatter with NLS parameters
-            DataFormatter dataFormatter = new DataFormatter(nlsParameters);
-
-            // Instantiate CSVParser with the new parameters
-            CSVParser parser = new CSVParser(csvFilePath, columnSeparator, enclosureCharacter, tableMetadata, dataFormatter, batchSize, dataDetectionMode, connectionManager, csvCharset);
-
-            // DataLoader
-            DataLoader loader = new DataLoader(connectionManager, tableMetadata, dataFormatter, batchSize); // Passando dataFormatter como parmetro
-            loader.loadData(parser);
-
-            System.out.println(DateUtils.getCurrentTimestamp() + " - Fim de execuo.");
-        } catch (Exception e) {
-            e.printStackTrace(); // Para detalhes no console
-
-            // Exibindo uma mensagem de erro em uma janela de dilogo
-            JOptionPane.showMessageDialog(null, 
-                "Ocorreu um erro durante a execuo do programa: " + e.getMessage(),
-                "Erro Crtico",
-                JOptionPane.ERROR_MESSAGE);
-
-            System.exit(1);
-        }
-    }
-}
+package com.loader.main;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.JOptionPane;
+
+import com.loader.config.ConfigurationManager;
+import com.loader.database.BindMode;
+import com.loader.database.CommitMode;
+import com.loader.database.ConnectionManager;
+import com.loader.database.DirectPathLoadStrategy;
+import com.loader.database.LoadMethod;
+import com.loader.database.MetadataCache;
+import com.loader.database.MultiFileLoader;
+import com.loader.database.RowCountVerification;
+import com.loader.database.TableMetadata;
+import com.loader.database.UpsertLoadStrategy;
+import com.loader.csv.CSVParser;
+import com.loader.csv.ColumnMapping;
+import com.loader.csv.CsvFileSet;
+import com.loader.csv.InternMode;
+import com.loader.csv.ParseOrder;
+import com.loader.database.NlsParametersFetcher;
+import com.loader.util.DataFormatter;
+import com.loader.util.DateUtils;
+import com.loader.database.DataLoader;
+import com.loader.util.Log;
+
+public class Main {
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            Log.info("Usage: java -jar loader.jar <Full path to config file>");
+            return;
+        }
+
+        String configFilePath = args[0];
+        try {
+            Log.info(DateUtils.getCurrentTimestamp() + " - Início de execução.");
+            
+            ConfigurationManager configManager = new ConfigurationManager(configFilePath);
+            Log.setLevel(Log.Level.valueOf(configManager.getProperty("LOG_LEVEL", Log.Level.INFO.name()).toUpperCase()));
+
+            // Database connection configuration
+            String dbUser = System.getenv(configManager.getProperty("DB_USER_ENV"));
+            String dbPassword = System.getenv(configManager.getProperty("DB_PASSWORD_ENV"));
+            String dbInstance = configManager.getProperty("DB_INSTANCE");
+            String dbUrl = configManager.getProperty("DB_URL", "jdbc:oracle:thin:@" + dbInstance);
+            String dbDriver = configManager.getProperty("DB_DRIVER", ConnectionManager.ORACLE_DRIVER);
+
+            if (dbUser == null || dbUser.trim().isEmpty()) {
+                Log.error("Usuário da base de dados não definido nas variáveis de ambiente ou parametrizado incorretamente no config.txt.");
+                System.exit(1);
+            }    
+            if (dbPassword == null || dbPassword.trim().isEmpty()) {
+                Log.error("Senha da base de dados não definida nas variáveis de ambiente ou parametrizada incorretamente no config.txt.");
+                System.exit(1);
+            }
+                       
+            Log.info("DB User: " + dbUser);
+            Log.info("DB Password: [PROTECTED]");
+            Log.info("DB Instance: " + dbInstance);
+            Log.info("DB URL: " + dbUrl);
+
+            // CSV loader configuration
+            String targetTable = configManager.getProperty("TARGET_TABLE");
+            String csvFilePath = configManager.getProperty("CSV_FILE_PATH");
+            String csvManifest = configManager.getProperty("CSV_MANIFEST", null);
+            int fileThreads = configManager.getIntProperty("FILE_THREADS", 1);
+            boolean validateOnly = Boolean.parseBoolean(configManager.getProperty("VALIDATE_ONLY", "false"));
+            int configuredParseThreads = configManager.getIntProperty("PARSE_THREADS", 1);
+            ParseOrder parseOrder = ParseOrder.valueOf(configManager.getProperty("PARSE_ORDER", ParseOrder.ORDERED.name()).toUpperCase());
+            InternMode internMode = InternMode.valueOf(configManager.getProperty("INTERN_STRINGS", InternMode.AUTO.name()).toUpperCase());
+            String columnSeparator = configManager.getProperty("COLUMN_SEPARATOR");
+            String enclosureCharacter = configManager.getProperty("ENCLOSURE_CHARACTER");
+            int batchSize = Integer.parseInt(configManager.getProperty("BATCH_SIZE"));
+            String dataDetectionMode = configManager.getProperty("DATA_DETECTION_MODE");
+            String csvCharset = configManager.getProperty("CHARSET"); // Lê o charset do CSV do arquivo de configuração
+            boolean adaptiveBatch = Boolean.parseBoolean(configManager.getProperty("ADAPTIVE_BATCH", "false"));
+            int batchSizeMin = configManager.getIntProperty("BATCH_SIZE_MIN", 100);
+            int batchSizeMax = configManager.getIntProperty("BATCH_SIZE_MAX", 20000);
+            boolean restartable = Boolean.parseBoolean(configManager.getProperty("RESTARTABLE", "false"));
+            int commitInterval = configManager.getIntProperty("COMMIT_INTERVAL", restartable ? 10 : 0);
+            long maxErrors = configManager.getIntProperty("MAX_ERRORS", 0);
+            int metricsInterval = configManager.getIntProperty("METRICS_INTERVAL", 30);
+            String metricsFile = configManager.getProperty("METRICS_FILE", null);
+            RowCountVerification rowCountVerification = RowCountVerification.valueOf(configManager.getProperty("ROW_COUNT_VERIFICATION", RowCountVerification.NONE.name()).toUpperCase());
+            String markerColumn = configManager.getProperty("LOAD_MARKER_COLUMN", null);
+            String markerValue = configManager.getProperty("LOAD_MARKER_VALUE", null);
+            int loadThreads = configManager.getIntProperty("LOAD_THREADS", 1);
+            CommitMode commitMode = CommitMode.valueOf(configManager.getProperty("COMMIT_MODE", CommitMode.ALL_OR_NOTHING.name()).toUpperCase());
+            int pipelineDepth = configManager.getIntProperty("PIPELINE_DEPTH", 0);
+            BindMode bindMode = BindMode.valueOf(configManager.getProperty("BIND_MODE", BindMode.STRING.name()).toUpperCase());
+            LoadMethod loadMethod = LoadMethod.valueOf(configManager.getProperty("LOAD_METHOD", LoadMethod.CONVENTIONAL.name()).toUpperCase());
+            boolean directPathNologging = Boolean.parseBoolean(configManager.getProperty("DIRECT_PATH_NOLOGGING", "false"));
+            boolean directPathRebuildIndexes = Boolean.parseBoolean(configManager.getProperty("DIRECT_PATH_REBUILD_INDEXES", "false"));
+            List<String> upsertKeys = new ArrayList<>();
+            for (String key : configManager.getProperty("UPSERT_KEYS", "").split(",")) {
+                if (!key.trim().isEmpty()) {
+                    upsertKeys.add(key.trim());
+                }
+            }
+            
+
+            Log.info("Target Table: " + targetTable);
+            List<String> csvFiles = CsvFileSet.resolve(csvFilePath, csvManifest);
+            if (csvManifest != null) {
+                Log.info("CSV Manifest: " + csvManifest);
+            } else {
+                Log.info("CSV File Path: " + csvFilePath);
+            }
+            if (csvFiles.size() > 1) {
+                Log.info("CSV Files: " + csvFiles.size() + " (File Threads: " + fileThreads + ")");
+            }
+            Log.info("Column Separator: " + columnSeparator);
+            Log.info("Enclosure Character: " + enclosureCharacter);
+            Log.info("Batch Size: " + batchSize);
+            if (adaptiveBatch) {
+                Log.info("Adaptive Batch: " + batchSizeMin + " - " + batchSizeMax);
+            }
+            Log.info("Data Detection Mode: " + dataDetectionMode);
+            Log.info("Bind Mode: " + bindMode);
+            Log.info("Load Method: " + loadMethod);
+            if (loadMethod == LoadMethod.UPSERT && !upsertKeys.isEmpty()) {
+                Log.info("Upsert Keys: " + String.join(", ", upsertKeys));
+            }
+            if (validateOnly) {
+                Log.info("Validate Only: nenhum registro será gravado no banco.");
+            }
+            if (maxErrors > 0) {
+                Log.info("Max Errors: " + maxErrors);
+            }
+            // O checkpoint guarda a posição em bytes, que o parse paralelo não informa
+            if (configuredParseThreads > 1 && restartable) {
+                Log.warn("a carga reiniciável exige leitura sequencial; PARSE_THREADS=" + configuredParseThreads + " ignorado.");
+            }
+            int parseThreads = restartable ? 1 : configuredParseThreads;
+            if (parseThreads > 1) {
+                Log.info("Parse Threads: " + parseThreads + " (" + parseOrder + ")");
+            }
+            if (restartable && loadMethod == LoadMethod.DIRECT_PATH) {
+                // Cada lote do DIRECT_PATH é confirmado; o checkpoint precisa acompanhar cada commit
+                Log.info("Commit Interval: 1 lote (reiniciável, LOAD_METHOD=DIRECT_PATH confirma cada lote)");
+            } else if (commitInterval > 0 || restartable) {
+                Log.info("Commit Interval: " + commitInterval + " lotes" + (restartable ? " (reiniciável)" : ""));
+            }
+            Log.info("Load Threads: " + loadThreads);
+            if (loadThreads > 1) {
+                Log.info("Commit Mode: " + commitMode);
+            } else if (pipelineDepth > 0) {
+                Log.info("Pipeline Depth: " + pipelineDepth);
+            }
+
+            // Establish database connection
+            ConnectionManager connectionManager = new ConnectionManager(dbUrl, dbUser, dbPassword, dbDriver);
+            connectionManager.setPoolSize(configManager.getIntProperty("DB_POOL_SIZE", ConnectionManager.DEFAULT_POOL_SIZE));
+            connectionManager.setStatementCacheSize(configManager.getIntProperty("DB_STATEMENT_CACHE_SIZE", ConnectionManager.DEFAULT_STATEMENT_CACHE_SIZE));
+            
+            // Snapshot em disco dos metadados e parâmetros NLS entre execuções (opcional)
+            String metadataCacheDir = configManager.getProperty("METADATA_CACHE_DIR", "");
+            MetadataCache metadataCache = null;
+            if (!metadataCacheDir.trim().isEmpty()) {
+                metadataCache = new MetadataCache(metadataCacheDir.trim(), dbUrl, dbUser,
+                        configManager.getIntProperty("METADATA_CACHE_TTL", MetadataCache.DEFAULT_TTL_SECONDS));
+                Log.info("Metadata Cache: " + metadataCacheDir.trim());
+            }
+
+            TableMetadata tableMetadata = new TableMetadata(connectionManager, targetTable, metadataCache);
+            // Fetch NLS session parameters
+            NlsParametersFetcher nlsFetcher = new NlsParametersFetcher(connectionManager, metadataCache);
+            Map<String, String> nlsParameters = nlsFetcher.fetchNlsParameters();
+
+            // Instantiate DataFormatter with NLS parameters
+            DataFormatter dataFormatter = new DataFormatter(nlsParameters);
+
+            // Com mapeamento por cabeçalho, as colunas da carga vêm do primeiro arquivo; os demais precisam tê-las
+            String columnMapping = configManager.getProperty("COLUMN_MAPPING", ColumnMapping.POSITION);
+            TableMetadata loadMetadata = ColumnMapping.isPositional(columnMapping) ? tableMetadata
+                    : mapColumns(columnMapping, new CSVParser(csvFiles.get(0), columnSeparator, enclosureCharacter, tableMetadata, dataFormatter, batchSize, dataDetectionMode, connectionManager, csvCharset), tableMetadata);
+
+            // O marcador identifica a execução, não o arquivo: a contagem de um arquivo incluiria as linhas dos demais
+            boolean markerPerRun = csvFiles.size() > 1 && rowCountVerification == RowCountVerification.MARKER;
+            if (markerPerRun) {
+                Log.warn("ROW_COUNT_VERIFICATION=MARKER não se aplica à carga de vários arquivos; conferência desligada.");
+            }
+            // Linhas atualizadas pelo MERGE não mudam o COUNT(*) da tabela
+            boolean fullWithUpsert = loadMethod == LoadMethod.UPSERT && rowCountVerification == RowCountVerification.FULL;
+            if (fullWithUpsert) {
+                Log.warn("ROW_COUNT_VERIFICATION=FULL não se aplica a LOAD_METHOD=UPSERT; conferência desligada.");
+            }
+            RowCountVerification verification = markerPerRun || fullWithUpsert ? RowCountVerification.NONE : rowCountVerification;
+
+            // Um loader por arquivo, todos com a mesma configuração
+            MultiFileLoader.LoaderFactory factory = new MultiFileLoader.LoaderFactory() {
+                @Override
+                public CSVParser createParser(String csvFile) throws IOException {
+                    CSVParser parser = new CSVParser(csvFile, columnSeparator, enclosureCharacter, loadMetadata, dataFormatter, batchSize, dataDetectionMode, connectionManager, csvCharset);
+                    parser.setParseThreads(parseThreads, parseOrder);
+                    parser.setColumnMapping(columnMapping);
+                    parser.setInternStrings(internMode);
+                    return parser;
+                }
+
+                @Override
+                public DataLoader createLoader() {
+                    DataLoader loader = new DataLoader(connectionManager, loadMetadata, dataFormatter, batchSize); // Passando dataFormatter como parâmetro
+                    loader.setLoadThreads(loadThreads);
+                    loader.setCommitMode(commitMode);
+                    loader.setBindMode(bindMode);
+                    loader.setPipelineDepth(pipelineDepth);
+                    loader.setCommitInterval(commitInterval);
+                    loader.setMaxErrors(maxErrors);
+                    loader.setMetricsInterval(metricsInterval);
+                    loader.setRowCountVerification(verification, markerColumn, markerValue);
+                    loader.setRestartable(restartable);
+                    if (adaptiveBatch) {
+                        loader.setAdaptiveBatchSize(batchSizeMin, batchSizeMax);
+                    }
+                    if (loadMethod == LoadMethod.DIRECT_PATH) {
+                        loader.setLoadStrategy(new DirectPathLoadStrategy(directPathNologging, directPathRebuildIndexes));
+                    } else if (loadMethod == LoadMethod.UPSERT) {
+                        loader.setLoadStrategy(new UpsertLoadStrategy(upsertKeys));
+                    }
+                    return loader;
+                }
+            };
+
+            if (validateOnly) {
+                // Só lê e formata os registros, sem gravar no banco; os inválidos vão para o .bad
+                for (String csvFile : csvFiles) {
+                    long records = factory.createParser(csvFile).parseCSV(record -> { });
+                    Log.info("Validação de " + csvFile + ": " + records + " registros válidos.");
+                }
+            } else if (csvFiles.size() == 1) {
+                DataLoader loader = factory.createLoader();
+                loader.setMetricsFile(metricsFile);
+                loader.loadData(factory.createParser(csvFiles.get(0)));
+            } else {
+                // Cargas simultâneas na mesma tabela não combinam com bloqueio da tabela nem com COUNT(*) da tabela inteira
+                if (fileThreads > 1 && (loadMethod == LoadMethod.DIRECT_PATH || rowCountVerification == RowCountVerification.FULL)) {
+                    Log.warn("FILE_THREADS=" + fileThreads + " ignorado com " + (loadMethod == LoadMethod.DIRECT_PATH ? "LOAD_METHOD=DIRECT_PATH" : "ROW_COUNT_VERIFICATION=FULL") + "; arquivos carregados um por vez.");
+                    fileThreads = 1;
+                }
+                new MultiFileLoader(factory, fileThreads, tableMetadata.getQualifiedName()).loadFiles(csvFiles, metricsFile);
+            }
+
+            connectionManager.close();
+            Log.info(DateUtils.getCurrentTimestamp() + " - Fim de execução.");
+        } catch (Exception e) {
+            Log.error("Erro durante a execução", e); // Para detalhes no console
+
+            // Exibindo uma mensagem de erro em uma janela de diálogo
+            JOptionPane.showMessageDialog(null, 
+                "Ocorreu um erro durante a execução do programa: " + e.getMessage(),
+                "Erro Crítico",
+                JOptionPane.ERROR_MESSAGE);
+
+            System.exit(1);
+        }
+    }
+
+    // Colunas da tabela presentes no cabeçalho do arquivo, segundo o COLUMN_MAPPING
+    private static TableMetadata mapColumns(String columnMapping, CSVParser headerParser, TableMetadata tableMetadata) throws IOException {
+        String[] header;
+        try {
+            header = headerParser.readHeader();
+        } finally {
+            headerParser.closeResources();
+        }
+        ColumnMapping mapping = ColumnMapping.resolve(columnMapping, header, tableMetadata.getColumns());
+        Log.info("Column Mapping: " + columnMapping + " (" + mapping.getColumnNames().size() + " de " + tableMetadata.getColumns().size()
+                + " colunas da tabela; " + (header.length - mapping.getColumnNames().size()) + " campos do CSV ignorados)");
+        return tableMetadata.withColumns(mapping.getColumnNames());
+    }
+}
@@ -0,0 +1,129 @@
+package com.loader.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Grava linhas de texto numa thread própria: quem escreve só coloca a linha numa fila limitada, e a
+ * thread de gravação drena a fila em blocos, com um único flush por bloco. Com a fila cheia,
+ * {@link #write(String)} aguarda (nenhuma linha se perde) e {@link #offer(String)} desiste.
+ *
+ * Erros de gravação ficam guardados e são relançados na próxima escrita ou no fechamento.
+ */
+public class AsyncLineWriter implements Closeable {
+    private static final int DRAIN_CHUNK = 1024;
+    // Marcador de fim; comparado por referência
+    private static final String END = new String("");
+
+    private final Writer target;
+    private final boolean closeTarget;
+    private final BlockingQueue<String> queue;
+    private final Thread writerThread;
+    private volatile IOException error;
+    private volatile boolean closed;
+
+    /**
+     * @param closeTarget fecha o Writer de destino no {@link #close()} (false para System.out)
+     */
+    public AsyncLineWriter(Writer target, String threadName, int capacity, boolean closeTarget) {
+        this.target = target;
+        this.closeTarget = closeTarget;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writerThread = new Thread(this::drain, threadName);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Enfileira a linha, aguardando espaço na fila se necessário.
+     */
+    public void write(String line) throws IOException {
+        checkError();
+        if (closed) {
+            throw new IOException("Gravação assíncrona já encerrada (" + writerThread.getName() + ")");
+        }
+        try {
+            queue.put(line);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrompido ao enfileirar linha para " + writerThread.getName());
+        }
+    }
+
+    /**
+     * Enfileira a linha sem bloquear. Retorna false se a fila estiver cheia.
+     */
+    public boolean offer(String line) {
+        return error == null && !closed && queue.offer(line);
+    }
+
+    private void drain() {
+        List<String> chunk = new ArrayList<>(DRAIN_CHUNK);
+        String separator = System.lineSeparator();
+        try {
+            while (true) {
+                chunk.add(queue.take());
+                queue.drainTo(chunk, DRAIN_CHUNK - 1);
+                for (String line : chunk) {
+                    if (line == END) {
+                        target.flush();
+                        return;
+                    }
+                    target.write(line);
+                    target.write(separator);
+                }
+                chunk.clear();
+                target.flush();
+            }
+        } catch (IOException e) {
+            error = e;
+            // Continua drenando para não travar quem escreve; as linhas são descartadas
+            drainAfterError();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainAfterError() {
+        try {
+            while (queue.take() != END) {
+                // Descarta
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkError() throws IOException {
+        if (error != null) {
+            throw new IOException("Falha na gravação assíncrona (" + writerThread.getName() + ")", error);
+        }
+    }
+
+    /**
+     * Grava as linhas pendentes, encerra a thread de gravação e relança um erro de gravação, se houver.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(END);
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (closeTarget) {
+            target.close();
+        }
+        checkError();
+    }
+}
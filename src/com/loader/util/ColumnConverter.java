@@ -0,0 +1,43 @@
+package com.loader.util;
+
+/**
+ * Conversor de uma coluna, criado uma única vez por tipo a partir dos parâmetros NLS da sessão.
+ * As implementações não guardam estado mutável e podem ser usadas por várias threads.
+ */
+public interface ColumnConverter {
+
+    /**
+     * Destino dos valores do modo tipado numa coluna de lote: inteiros chegam como long, sem objeto.
+     */
+    interface TypedColumn {
+        void setNull(int row);
+
+        void setLong(int row, long value);
+
+        void setObject(int row, Object value);
+    }
+
+    /**
+     * Converte o valor lido do CSV para o texto esperado pela sessão Oracle.
+     */
+    String format(String value);
+
+    /**
+     * Converte o valor lido do CSV para o objeto Java vinculado no modo tipado (BigDecimal/Long para
+     * números, Timestamp para datas, String para texto). Valores vazios resultam em null.
+     */
+    Object parse(String value);
+
+    /**
+     * Mesmo resultado de {@link #parse(String)}, gravado na linha 'row' de 'target'. Conversores
+     * que produzem inteiros os entregam sem criar o Long.
+     */
+    default void parseInto(String value, TypedColumn target, int row) {
+        Object parsed = parse(value);
+        if (parsed == null) {
+            target.setNull(row);
+        } else {
+            target.setObject(row, parsed);
+        }
+    }
+}
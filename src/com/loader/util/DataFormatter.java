@@ -1,125 +1,154 @@
-package com.loader.util;
-
-import java.text.DecimalFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Map;
-
-public class DataFormatter {
-
-    private Map<String, String> nlsParameters;
-
-    public DataFormatter(Map<String, String> nlsParameters) {
-        this.nlsParameters = nlsParameters;
-    }
-
-    public String formatString(String value) {
-        // Perform any necessary string formatting
-        return value;
-    }
-
-    public String formatDate(String value) {
-        if (value == null || value.isEmpty()) {
-            return null;
-        }
-
-        // Identifica se é uma data, uma hora ou uma data com hora
-        String formatPattern;
-        SimpleDateFormat outputFormat;
-
-        if (value.contains("/") && value.contains(":")) {
-            // Assume formato de data e hora, por exemplo, "dd/MM/yyyy HH:mm:ss"
-            formatPattern = "dd/MM/yyyy HH:mm:ss";
-            outputFormat = new SimpleDateFormat(getJavaDateTimeFormat());
-        } else if (value.contains(":")) {
-            // Assume formato de hora, por exemplo, "HH:mm:ss"
-            formatPattern = "HH:mm:ss";
-            outputFormat = new SimpleDateFormat(getJavaTimeFormat());
-        } else {
-            // Assume formato de data, por exemplo, "dd/MM/yyyy"
-            formatPattern = "dd/MM/yyyy";
-            outputFormat = new SimpleDateFormat(getJavaDateFormat());
-        }
-
-        try {
-            SimpleDateFormat inputFormat = new SimpleDateFormat(formatPattern);
-            Date date = inputFormat.parse(value);
-            return outputFormat.format(date);
-        } catch (ParseException e) {
-            System.err.println("Date parsing error: " + e.getMessage());
-            return null;
-        }
-    }
-
-    private String getJavaDateFormat() {
-        String nlsDateFormat = nlsParameters.getOrDefault("NLS_DATE_FORMAT", "yyyy-MM-dd");
-        return convertToJavaDateFormat(nlsDateFormat);
-    }
-
-    private String getJavaTimeFormat() {
-        String nlsTimeFormat = nlsParameters.getOrDefault("NLS_TIME_FORMAT", "HH:mm:ss");
-        return convertToJavaDateFormat(nlsTimeFormat);
-    }
-
-    private String getJavaDateTimeFormat() {
-        String nlsTimestampFormat = nlsParameters.getOrDefault("NLS_TIMESTAMP_FORMAT", "yyyy-MM-dd HH:mm:ss");
-        return convertToJavaDateFormat(nlsTimestampFormat);
-    }
-
-
-    private String convertToJavaDateFormat(String oracleFormat) {
-        // Replace Oracle's RR with Java's yy (note: this does not replicate Oracle's exact century logic)
-        oracleFormat = oracleFormat.replace("RRRR", "yyyy");
-        oracleFormat = oracleFormat.replace("RR", "yy");
-        oracleFormat = oracleFormat.replace("DD", "dd");
-        oracleFormat = oracleFormat.replace("MM", "MM");
-        oracleFormat = oracleFormat.replace("YYYY", "yyyy");
-        oracleFormat = oracleFormat.replace("HH24", "HH");
-        oracleFormat = oracleFormat.replace("HH12", "hh");
-        oracleFormat = oracleFormat.replace("MI", "mm");
-        oracleFormat = oracleFormat.replace("SS", "ss");
-        oracleFormat = oracleFormat.replace("FF3", "SSS");
-        oracleFormat = oracleFormat.replace("TZO", "XXX"); 
-        // Add more replacements based on Oracle format specifics as needed
-        return oracleFormat;
-    }
-    
-    private String convertToJavaDecimalFormat(String oracleValue) {
-        // Oracle uses "," as decimal separator, so we need to replace it with "."
-        return oracleValue.replace(",", ".");
-    }
-    
-    public String formatDecimal(String value) {
-        if (value == null || value.isEmpty()) {
-            return null;
-        }
-        String nlsDecimalFormat = nlsParameters.getOrDefault("NLS_NUMERIC_CHARACTERS", ".,").substring(0, 1);
-        if (!nlsDecimalFormat.equals(".")) {
-            value = convertToJavaDecimalFormat(value);
-        }
-
-        // Verifica se o valor tem casas decimais
-        if (value.contains(".")) {
-            DecimalFormat df = new DecimalFormat("0.##"); // Use "." as decimal separator for Java
-            return df.format(Double.parseDouble(value));
-        } else {
-            // Não há casas decimais, então formate como número inteiro
-            return value;
-        }
-    }
-
-    // Method to determine and apply the correct formatting based on the data type
-    public String formatData(String value, String dataType) {
-        switch (dataType) {
-            case "DATE":
-            case "TIMESTAMP":
-                return formatDate(value);
-            case "BINARY_DOUBLE":
-            case "NUMBER":
-                return formatDecimal(value);
-            default:
-                return formatString(value);
-        }
-    }
-}
+package com.loader.util;
+
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class DataFormatter {
+
+    private Map<String, String> nlsParameters;
+    private final ConcurrentMap<String, ColumnConverter> converters = new ConcurrentHashMap<>();
+    private final char nlsDecimalSeparator;
+    private final DateTimeFormatter dateOutput;
+    private final DateTimeFormatter timeOutput;
+    private final DateTimeFormatter timestampOutput;
+    private final DateConverter untypedDateConverter;
+
+    public DataFormatter(Map<String, String> nlsParameters) {
+        this.nlsParameters = nlsParameters;
+        // Os formatos NLS são traduzidos uma única vez para padrões do java.time
+        this.nlsDecimalSeparator = nlsParameters.getOrDefault("NLS_NUMERIC_CHARACTERS", ".,").charAt(0);
+        this.dateOutput = DateTimeFormatter.ofPattern(getJavaDateFormat());
+        this.timeOutput = DateTimeFormatter.ofPattern(getJavaTimeFormat());
+        this.timestampOutput = DateTimeFormatter.ofPattern(getJavaDateTimeFormat());
+        this.untypedDateConverter = new DateConverter(dateOutput, timeOutput, timestampOutput);
+    }
+
+    public String formatString(String value) {
+        // Perform any necessary string formatting
+        return value;
+    }
+
+    // Sem o tipo da coluna, o formato de saída segue o formato do valor (data, hora ou data com hora)
+    public String formatDate(String value) {
+        return untypedDateConverter.format(value);
+    }
+
+    private String getJavaDateFormat() {
+        String nlsDateFormat = nlsParameters.getOrDefault("NLS_DATE_FORMAT", "YYYY-MM-DD");
+        return convertToJavaDateFormat(nlsDateFormat);
+    }
+
+    private String getJavaTimeFormat() {
+        String nlsTimeFormat = nlsParameters.getOrDefault("NLS_TIME_FORMAT", "HH24:MI:SS");
+        return convertToJavaDateFormat(nlsTimeFormat);
+    }
+
+    private String getJavaDateTimeFormat() {
+        String nlsTimestampFormat = nlsParameters.getOrDefault("NLS_TIMESTAMP_FORMAT", "YYYY-MM-DD HH24:MI:SS");
+        return convertToJavaDateFormat(nlsTimestampFormat);
+    }
+
+    // Elementos de formato Oracle e seus equivalentes java.time, do mais longo para o mais curto
+    private static final String[][] DATE_FORMAT_ELEMENTS = {
+        {"TZH:TZM", "XXX"}, {"MONTH", "MMMM"}, {"RRRR", "yyyy"}, {"YYYY", "yyyy"}, {"HH24", "HH"}, {"HH12", "hh"},
+        {"FF1", "S"}, {"FF2", "SS"}, {"FF3", "SSS"}, {"FF4", "SSSS"}, {"FF5", "SSSSS"}, {"FF6", "SSSSSS"},
+        {"FF7", "SSSSSSS"}, {"FF8", "SSSSSSSS"}, {"FF9", "SSSSSSSSS"}, {"DAY", "EEEE"}, {"MON", "MMM"},
+        {"TZR", "VV"}, {"TZH", "X"}, {"FF", "SSSSSS"}, {"RR", "yy"}, {"YY", "yy"}, {"MM", "MM"}, {"DD", "dd"},
+        {"DY", "EEE"}, {"HH", "hh"}, {"MI", "mm"}, {"SS", "ss"}, {"AM", "a"}, {"PM", "a"}, {"FM", ""}
+    };
+
+    private String convertToJavaDateFormat(String oracleFormat) {
+        // Note: RR/YY são formatados com dois dígitos; a regra de século do Oracle fica a cargo do banco
+        String upper = oracleFormat.toUpperCase();
+        StringBuilder pattern = new StringBuilder();
+        int i = 0;
+        while (i < oracleFormat.length()) {
+            char c = oracleFormat.charAt(i);
+            if (c == '"') {
+                // Texto literal entre aspas duplas
+                int close = oracleFormat.indexOf('"', i + 1);
+                close = close < 0 ? oracleFormat.length() : close;
+                appendLiteral(pattern, oracleFormat.substring(i + 1, close));
+                i = close + 1;
+                continue;
+            }
+            String[] element = matchDateFormatElement(upper, i);
+            if (element != null) {
+                pattern.append(element[1]);
+                i += element[0].length();
+            } else if (upper.charAt(i) == 'X') {
+                appendLiteral(pattern, String.valueOf(nlsDecimalSeparator)); // Separador decimal do NLS
+                i++;
+            } else {
+                appendLiteral(pattern, String.valueOf(c));
+                i++;
+            }
+        }
+        return pattern.toString();
+    }
+
+    private static String[] matchDateFormatElement(String upperFormat, int index) {
+        for (String[] element : DATE_FORMAT_ELEMENTS) {
+            if (upperFormat.startsWith(element[0], index)) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private static void appendLiteral(StringBuilder pattern, String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            if (Character.isLetter(c)) {
+                pattern.append('\'').append(c).append('\'');
+            } else if (c == '\'') {
+                pattern.append("''");
+            } else {
+                pattern.append(c);
+            }
+        }
+    }
+    
+    public String formatDecimal(String value) {
+        return converterFor("NUMBER").format(value);
+    }
+
+    /**
+     * Devolve o conversor da coluna para o tipo informado. Os conversores são criados uma vez por tipo
+     * e reaproveitados em todas as linhas; quem processa muitas linhas deve obter o conversor de cada
+     * coluna antes do laço em vez de chamar {@link #formatData(String, String)} por valor.
+     */
+    public ColumnConverter converterFor(String dataType) {
+        ColumnConverter converter = converters.get(dataType);
+        if (converter == null) {
+            converter = createConverter(dataType);
+            ColumnConverter existing = converters.putIfAbsent(dataType, converter);
+            converter = existing != null ? existing : converter;
+        }
+        return converter;
+    }
+
+    private ColumnConverter createConverter(String dataType) {
+        if (dataType.equals("DATE")) {
+            // O Oracle converte o texto de uma coluna DATE usando o NLS_DATE_FORMAT
+            return new DateConverter(dateOutput, dateOutput, dateOutput);
+        }
+        if (dataType.startsWith("TIMESTAMP")) {
+            return new DateConverter(timestampOutput, timestampOutput, timestampOutput);
+        }
+        switch (dataType) {
+            case "BINARY_DOUBLE":
+            case "NUMBER":
+                return new DecimalConverter(nlsDecimalSeparator);
+            default:
+                return StringConverter.INSTANCE;
+        }
+    }
+
+    // Method to determine and apply the correct formatting based on the data type
+    public String formatData(String value, String dataType) {
+        return converterFor(dataType).format(value);
+    }
+}
@@ -0,0 +1,81 @@
+package com.loader.util;
+
+import java.sql.Timestamp;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+
+/**
+ * Converte datas do CSV (dd/MM/yyyy, HH:mm:ss ou dd/MM/yyyy HH:mm:ss) para o formato NLS da sessão.
+ * Os formatadores são imutáveis e compilados uma vez, no lugar dos SimpleDateFormat criados por valor.
+ */
+final class DateConverter implements ColumnConverter {
+
+    private static final DateTimeFormatter INPUT_DATE = DateTimeFormatter.ofPattern("d/M/uuuu");
+    private static final DateTimeFormatter INPUT_TIME = DateTimeFormatter.ofPattern("H:m:s");
+    private static final DateTimeFormatter INPUT_DATE_TIME = DateTimeFormatter.ofPattern("d/M/uuuu H:m:s");
+    private static final LocalDate EPOCH_DATE = LocalDate.of(1970, 1, 1);
+
+    private final DateTimeFormatter dateOutput;
+    private final DateTimeFormatter timeOutput;
+    private final DateTimeFormatter dateTimeOutput;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Um formatador de saída para cada formato de entrada (data, hora, data e hora)
+    DateConverter(DateTimeFormatter dateOutput, DateTimeFormatter timeOutput, DateTimeFormatter dateTimeOutput) {
+        this.dateOutput = dateOutput;
+        this.timeOutput = timeOutput;
+        this.dateTimeOutput = dateTimeOutput;
+    }
+
+    @Override
+    public String format(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            LocalDateTime dateTime = parseDateTime(value);
+            DateTimeFormatter output = value.indexOf('/') < 0 ? timeOutput : value.indexOf(':') < 0 ? dateOutput : dateTimeOutput;
+            return output.format(dateTime.atZone(zone));
+        } catch (DateTimeException e) {
+            Log.warn("Date parsing error: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public Object parse(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Timestamp.valueOf(parseDateTime(value));
+        } catch (DateTimeException e) {
+            Log.warn("Date parsing error: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Hora sem data é associada a 01/01/1970, como fazia o SimpleDateFormat
+    private static LocalDateTime parseDateTime(String value) {
+        boolean hasDate = value.indexOf('/') >= 0;
+        boolean hasTime = value.indexOf(':') >= 0;
+        if (hasDate && hasTime) {
+            return LocalDateTime.from(parse(INPUT_DATE_TIME, value));
+        } else if (hasTime) {
+            return LocalTime.from(parse(INPUT_TIME, value)).atDate(EPOCH_DATE);
+        } else {
+            return LocalDate.from(parse(INPUT_DATE, value)).atStartOfDay();
+        }
+    }
+
+    // Assim como o SimpleDateFormat, aceita texto excedente após a data (ex.: frações de segundo)
+    private static TemporalAccessor parse(DateTimeFormatter formatter, String value) {
+        return formatter.parse(value, new ParsePosition(0));
+    }
+}
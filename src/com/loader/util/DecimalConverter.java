@@ -0,0 +1,123 @@
+package com.loader.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+
+/**
+ * Normaliza números do CSV: troca o separador decimal do NLS por ponto, arredonda para no máximo
+ * duas casas como o antigo DecimalFormat("0.##") (HALF_EVEN, mas sobre o valor decimal do texto, não
+ * sobre a aproximação em double) e devolve o texto com o separador decimal local. Valores com até duas
+ * casas são tratados sem criar objetos intermediários além da String final.
+ */
+final class DecimalConverter implements ColumnConverter {
+
+    private final boolean commaDecimal;
+    private final char outputSeparator;
+
+    DecimalConverter(char nlsDecimalSeparator) {
+        this.commaDecimal = nlsDecimalSeparator != '.';
+        this.outputSeparator = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+    }
+
+    @Override
+    public String format(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        if (commaDecimal) {
+            value = value.replace(',', '.');
+        }
+        int dot = value.indexOf('.');
+        if (dot < 0) {
+            return value; // Não há casas decimais
+        }
+
+        String fast = formatPlain(value, dot);
+        if (fast != null) {
+            return fast;
+        }
+
+        String rounded = new BigDecimal(value).setScale(2, RoundingMode.HALF_EVEN).stripTrailingZeros().toPlainString();
+        if (rounded.equals("-0")) {
+            rounded = "0";
+        }
+        return outputSeparator == '.' ? rounded : rounded.replace('.', outputSeparator);
+    }
+
+    @Override
+    public Object parse(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        if (commaDecimal) {
+            value = value.replace(',', '.');
+        }
+        // Inteiros que cabem em um long dispensam o BigDecimal
+        if (isPlainLong(value)) {
+            return Long.valueOf(value);
+        }
+        return new BigDecimal(value);
+    }
+
+    @Override
+    public void parseInto(String value, TypedColumn target, int row) {
+        if (value == null || value.isEmpty()) {
+            target.setNull(row);
+            return;
+        }
+        if (commaDecimal) {
+            value = value.replace(',', '.');
+        }
+        if (isPlainLong(value)) {
+            target.setLong(row, Long.parseLong(value));
+        } else {
+            target.setObject(row, new BigDecimal(value));
+        }
+    }
+
+    // Sinal opcional seguido de até 18 dígitos: cabe num long sem estouro
+    private static boolean isPlainLong(String value) {
+        int length = value.length();
+        int start = value.charAt(0) == '-' || value.charAt(0) == '+' ? 1 : 0;
+        if (length == start || length - start > 18) {
+            return false;
+        }
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Caminho rápido para valores simples ([-]dígitos.dígitos) com até duas casas: basta remover zeros
+    // à direita. Devolve null quando o valor precisa do BigDecimal (mais casas, expoente, zeros à esquerda).
+    private String formatPlain(String value, int dot) {
+        int length = value.length();
+        int start = value.charAt(0) == '-' ? 1 : 0;
+        if (length - dot - 1 > 2 || (dot - start > 1 && value.charAt(start) == '0')) {
+            return null;
+        }
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (i != dot && (c < '0' || c > '9')) {
+                return null;
+            }
+        }
+        if (dot == start && dot == length - 1) {
+            return null; // Apenas o ponto
+        }
+
+        int end = length;
+        while (end > dot + 1 && value.charAt(end - 1) == '0') {
+            end--;
+        }
+        String integerPart = dot == start ? "0" : value.substring(start, dot);
+        if (end == dot + 1) {
+            return integerPart.equals("0") ? "0" : value.substring(0, start) + integerPart;
+        }
+        return value.substring(0, start) + integerPart + outputSeparator + value.substring(dot + 1, end);
+    }
+}
@@ -0,0 +1,104 @@
+package com.loader.util;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Log com níveis gravado de forma assíncrona na saída padrão (que o loader.cmd redireciona para o
+ * logLoader.txt). As mensagens são entregues a um {@link AsyncLineWriter}, de modo que a thread de
+ * carga não espera pela escrita no console.
+ *
+ * ERROR, WARN e INFO nunca são descartadas: com a fila cheia, quem loga aguarda. DEBUG e TRACE
+ * (mensagens por linha ou por coluna) são descartadas quando a fila está cheia, e o total descartado
+ * é informado no encerramento. O nível padrão é INFO; configure com LOG_LEVEL.
+ */
+public final class Log {
+
+    public enum Level {
+        ERROR, WARN, INFO, DEBUG, TRACE
+    }
+
+    private static final int QUEUE_CAPACITY = 16 * 1024;
+
+    private static volatile Level level = Level.INFO;
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final AsyncLineWriter writer = new AsyncLineWriter(new OutputStreamWriter(System.out), "loader-log", QUEUE_CAPACITY, false);
+
+    static {
+        // Garante que as mensagens pendentes sejam gravadas inclusive em System.exit
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::shutdown, "loader-log-shutdown"));
+    }
+
+    private Log() {
+    }
+
+    public static void setLevel(Level newLevel) {
+        level = newLevel;
+    }
+
+    public static boolean isEnabled(Level messageLevel) {
+        return messageLevel.ordinal() <= level.ordinal();
+    }
+
+    public static void error(String message) {
+        log(Level.ERROR, message);
+    }
+
+    public static void error(String message, Throwable error) {
+        StringWriter stackTrace = new StringWriter();
+        error.printStackTrace(new PrintWriter(stackTrace));
+        log(Level.ERROR, message + System.lineSeparator() + stackTrace.toString().trim());
+    }
+
+    public static void warn(String message) {
+        log(Level.WARN, message);
+    }
+
+    public static void info(String message) {
+        log(Level.INFO, message);
+    }
+
+    public static void debug(String message) {
+        log(Level.DEBUG, message);
+    }
+
+    public static void trace(String message) {
+        log(Level.TRACE, message);
+    }
+
+    private static void log(Level messageLevel, String message) {
+        if (!isEnabled(messageLevel)) {
+            return;
+        }
+        String line = messageLevel == Level.INFO ? message : "[" + messageLevel + "] " + message;
+        if (messageLevel.ordinal() > Level.INFO.ordinal()) {
+            if (!writer.offer(line)) {
+                dropped.incrementAndGet();
+            }
+            return;
+        }
+        try {
+            writer.write(line);
+        } catch (IOException e) {
+            System.out.println(line); // Saída assíncrona encerrada ou indisponível
+        }
+    }
+
+    /**
+     * Grava as mensagens pendentes e encerra a thread de log.
+     */
+    public static void shutdown() {
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            writer.offer("[" + Level.WARN + "] " + lost + " mensagens de DEBUG/TRACE descartadas por excesso de volume no log.");
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.err.println("Falha ao gravar o log: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.loader.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Lê o stream de origem numa thread própria, alguns blocos à frente de quem consome. Usado sobre a
+ * descompactação: o inflate de um bloco roda enquanto o parser processa o anterior.
+ *
+ * Os blocos são reaproveitados entre a thread de leitura e o consumidor; erros de leitura são
+ * relançados ao consumidor quando ele chega ao ponto da falha.
+ */
+public class ReadAheadInputStream extends InputStream {
+    private static final Chunk END = new Chunk(0);
+
+    private final InputStream source;
+    private final BlockingQueue<Chunk> filled;
+    private final BlockingQueue<Chunk> free;
+    private final Thread readerThread;
+    private volatile IOException error;
+    private volatile boolean closed;
+
+    private Chunk current;
+    private int currentPos;
+    private boolean finished;
+
+    public ReadAheadInputStream(InputStream source, String threadName, int chunkSize, int chunks) {
+        this.source = source;
+        this.filled = new ArrayBlockingQueue<>(chunks + 1);
+        this.free = new ArrayBlockingQueue<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            free.add(new Chunk(chunkSize));
+        }
+        this.readerThread = new Thread(this::readAhead, threadName);
+        this.readerThread.setDaemon(true);
+        this.readerThread.start();
+    }
+
+    private void readAhead() {
+        try {
+            while (!closed) {
+                Chunk chunk = free.take();
+                chunk.length = 0;
+                int read;
+                // Completa o bloco: os descompactadores devolvem poucos bytes por chamada
+                while (chunk.length < chunk.data.length && (read = source.read(chunk.data, chunk.length, chunk.data.length - chunk.length)) > 0) {
+                    chunk.length += read;
+                }
+                if (chunk.length > 0) {
+                    filled.put(chunk);
+                }
+                if (chunk.length < chunk.data.length) {
+                    break; // Fim do stream
+                }
+            }
+        } catch (IOException e) {
+            error = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            filled.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Garante um bloco com dados por consumir; false no fim do stream
+    private boolean ensureChunk() throws IOException {
+        if (current != null && currentPos < current.length) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+        if (current != null) {
+            free.offer(current);
+            current = null;
+        }
+        try {
+            Chunk next = filled.take();
+            if (next == END) {
+                finished = true;
+                if (error != null) {
+                    throw new IOException("Falha na leitura antecipada (" + readerThread.getName() + ")", error);
+                }
+                return false;
+            }
+            current = next;
+            currentPos = 0;
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrompido aguardando " + readerThread.getName());
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureChunk()) {
+            return -1;
+        }
+        return current.data[currentPos++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureChunk()) {
+            return -1;
+        }
+        int count = Math.min(len, current.length - currentPos);
+        System.arraycopy(current.data, currentPos, b, off, count);
+        currentPos += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return current != null ? current.length - currentPos : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        readerThread.interrupt();
+        try {
+            readerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        source.close();
+    }
+
+    private static class Chunk {
+        final byte[] data;
+        int length;
+
+        Chunk(int size) {
+            this.data = new byte[size];
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.loader.util;
+
+final class StringConverter implements ColumnConverter {
+
+    static final StringConverter INSTANCE = new StringConverter();
+
+    private StringConverter() {
+    }
+
+    @Override
+    public String format(String value) {
+        return value;
+    }
+
+    @Override
+    public Object parse(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}